@@ -4,6 +4,7 @@ plugins {
     id("java")
     id("org.jetbrains.kotlin.jvm") version "2.0.0"
     id("org.jetbrains.intellij") version "1.17.3"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.cirjson.plugin.idea"
@@ -19,6 +20,13 @@ sourceSets {
     }
 }
 
+// The benchmarks run against the same IDE platform as the tests
+configurations {
+    jmhImplementation {
+        extendsFrom(testImplementation.get())
+    }
+}
+
 // Configure Gradle IntelliJ Plugin
 // Read more: https://plugins.jetbrains.com/docs/intellij/tools-gradle-intellij-plugin.html
 intellij {
@@ -28,6 +36,19 @@ intellij {
     plugins.set(listOf(/* Plugin Dependencies */))
 }
 
+// Run with `./gradlew jmh`, results are written to build/results/jmh/results.json
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(2)
+    warmupIterations.set(3)
+    iterations.set(5)
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("us")
+    resultFormat.set("JSON")
+    // The parser and PSI benchmarks start a light fixture, which needs the sandbox the tests run in
+    jvmArgsAppend.addAll(provider { tasks.test.get().allJvmArgs })
+}
+
 tasks {
     // Set the JVM compatibility versions
     compileJava {
@@ -5,18 +5,19 @@ import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.PsiElement;
 import com.intellij.lang.ASTNode;
 import org.cirjson.plugin.idea.psi.impl.*;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonStubElementTypes;
 
 public interface CirJsonElementTypes {
 
-  IElementType ARRAY = new CirJsonElementType("ARRAY");
+  IElementType ARRAY = CirJsonStubElementTypes.create("ARRAY");
   IElementType BOOLEAN_LITERAL = new CirJsonElementType("BOOLEAN_LITERAL");
   IElementType ID_KEY_LITERAL = new CirJsonElementType("ID_KEY_LITERAL");
   IElementType LITERAL = new CirJsonElementType("LITERAL");
   IElementType NULL_LITERAL = new CirJsonElementType("NULL_LITERAL");
   IElementType NUMBER_LITERAL = new CirJsonElementType("NUMBER_LITERAL");
-  IElementType OBJECT = new CirJsonElementType("OBJECT");
-  IElementType OBJECT_ID_ELEMENT = new CirJsonElementType("OBJECT_ID_ELEMENT");
-  IElementType PROPERTY = new CirJsonElementType("PROPERTY");
+  IElementType OBJECT = CirJsonStubElementTypes.create("OBJECT");
+  IElementType OBJECT_ID_ELEMENT = CirJsonStubElementTypes.create("OBJECT_ID_ELEMENT");
+  IElementType PROPERTY = CirJsonStubElementTypes.create("PROPERTY");
   IElementType REFERENCE_EXPRESSION = new CirJsonElementType("REFERENCE_EXPRESSION");
   IElementType STRING_LITERAL = new CirJsonElementType("STRING_LITERAL");
   IElementType VALUE = new CirJsonElementType("VALUE");
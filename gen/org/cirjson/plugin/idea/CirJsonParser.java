@@ -33,7 +33,17 @@ public class CirJsonParser implements PsiParser, LightPsiParser {
   }
 
   static boolean parse_root_(IElementType t, PsiBuilder b, int l) {
-    return cirJson(b, l + 1);
+    boolean r;
+    if (t == ARRAY) {
+      r = array(b, l + 1);
+    }
+    else if (t == OBJECT) {
+      r = object(b, l + 1);
+    }
+    else {
+      r = cirJson(b, l + 1);
+    }
+    return r;
   }
 
   public static final TokenSet[] EXTENDS_SETS_ = new TokenSet[] {
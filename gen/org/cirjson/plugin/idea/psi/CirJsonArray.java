@@ -1,13 +1,15 @@
 // This is a generated file. Not intended for manual editing.
 package org.cirjson.plugin.idea.psi;
 
+import com.intellij.psi.StubBasedPsiElement;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonArrayStub;
 import com.intellij.navigation.ItemPresentation;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
-public interface CirJsonArray extends CirJsonContainer {
+public interface CirJsonArray extends CirJsonContainer, StubBasedPsiElement<CirJsonArrayStub> {
 
   @NotNull
   List<CirJsonValue> getValueList();
@@ -1,12 +1,14 @@
 // This is a generated file. Not intended for manual editing.
 package org.cirjson.plugin.idea.psi;
 
+import com.intellij.psi.StubBasedPsiElement;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonObjectStub;
 import java.util.List;
 import org.jetbrains.annotations.*;
 import com.intellij.psi.PsiElement;
 import com.intellij.navigation.ItemPresentation;
 
-public interface CirJsonObject extends CirJsonContainer {
+public interface CirJsonObject extends CirJsonContainer, StubBasedPsiElement<CirJsonObjectStub> {
 
   @Nullable
   CirJsonObjectIdElement getObjectIdElement();
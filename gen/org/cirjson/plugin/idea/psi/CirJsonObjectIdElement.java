@@ -1,11 +1,13 @@
 // This is a generated file. Not intended for manual editing.
 package org.cirjson.plugin.idea.psi;
 
+import com.intellij.psi.StubBasedPsiElement;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonObjectIdElementStub;
 import java.util.List;
 import org.jetbrains.annotations.*;
 import com.intellij.psi.PsiElement;
 
-public interface CirJsonObjectIdElement extends PsiElement {
+public interface CirJsonObjectIdElement extends PsiElement, StubBasedPsiElement<CirJsonObjectIdElementStub> {
 
   @NotNull
   CirJsonIdKeyLiteral getIdKeyLiteral();
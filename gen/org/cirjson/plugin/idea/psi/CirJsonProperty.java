@@ -1,13 +1,15 @@
 // This is a generated file. Not intended for manual editing.
 package org.cirjson.plugin.idea.psi;
 
+import com.intellij.psi.StubBasedPsiElement;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonPropertyStub;
 import java.util.List;
 import org.jetbrains.annotations.*;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
 import com.intellij.navigation.ItemPresentation;
 
-public interface CirJsonProperty extends CirJsonElement, PsiNamedElement {
+public interface CirJsonProperty extends CirJsonElement, PsiNamedElement, StubBasedPsiElement<CirJsonPropertyStub> {
 
   @NotNull
   String getName();
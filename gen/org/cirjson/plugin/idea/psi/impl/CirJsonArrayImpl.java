@@ -4,22 +4,28 @@ package org.cirjson.plugin.idea.psi.impl;
 import com.intellij.lang.ASTNode;
 import com.intellij.navigation.ItemPresentation;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.stubs.IStubElementType;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.cirjson.plugin.idea.psi.CirJsonArray;
 import org.cirjson.plugin.idea.psi.CirJsonElementVisitor;
 import org.cirjson.plugin.idea.psi.CirJsonStringLiteral;
 import org.cirjson.plugin.idea.psi.CirJsonValue;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonArrayStub;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
-public class CirJsonArrayImpl extends CirJsonContainerImpl implements CirJsonArray {
+public class CirJsonArrayImpl extends CirJsonArrayMixin implements CirJsonArray {
 
   public CirJsonArrayImpl(@NotNull ASTNode node) {
     super(node);
   }
 
+  public CirJsonArrayImpl(@NotNull CirJsonArrayStub stub, @NotNull IStubElementType<?, ?> type) {
+    super(stub, type);
+  }
+
   @Override
   public void accept(@NotNull CirJsonElementVisitor visitor) {
     visitor.visitArray(this);
@@ -8,15 +8,20 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.util.PsiTreeUtil;
 import static org.cirjson.plugin.idea.CirJsonElementTypes.*;
-import com.intellij.extapi.psi.ASTWrapperPsiElement;
 import org.cirjson.plugin.idea.psi.*;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonObjectIdElementStub;
+import com.intellij.psi.stubs.IStubElementType;
 
-public class CirJsonObjectIdElementImpl extends ASTWrapperPsiElement implements CirJsonObjectIdElement {
+public class CirJsonObjectIdElementImpl extends CirJsonStubElementImpl<CirJsonObjectIdElementStub> implements CirJsonObjectIdElement {
 
   public CirJsonObjectIdElementImpl(@NotNull ASTNode node) {
     super(node);
   }
 
+  public CirJsonObjectIdElementImpl(@NotNull CirJsonObjectIdElementStub stub, @NotNull IStubElementType<?, ?> type) {
+    super(stub, type);
+  }
+
   public void accept(@NotNull CirJsonElementVisitor visitor) {
     visitor.visitObjectIdElement(this);
   }
@@ -10,6 +10,8 @@ import com.intellij.psi.util.PsiTreeUtil;
 import static org.cirjson.plugin.idea.CirJsonElementTypes.*;
 import org.cirjson.plugin.idea.psi.*;
 import com.intellij.navigation.ItemPresentation;
+import com.intellij.psi.stubs.IStubElementType;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonObjectStub;
 
 public class CirJsonObjectImpl extends CirJsonObjectMixin implements CirJsonObject {
 
@@ -17,6 +19,10 @@ public class CirJsonObjectImpl extends CirJsonObjectMixin implements CirJsonObje
     super(node);
   }
 
+  public CirJsonObjectImpl(@NotNull CirJsonObjectStub stub, @NotNull IStubElementType<?, ?> type) {
+    super(stub, type);
+  }
+
   @Override
   public void accept(@NotNull CirJsonElementVisitor visitor) {
     visitor.visitObject(this);
@@ -31,13 +37,13 @@ public class CirJsonObjectImpl extends CirJsonObjectMixin implements CirJsonObje
   @Override
   @Nullable
   public CirJsonObjectIdElement getObjectIdElement() {
-    return findChildByClass(CirJsonObjectIdElement.class);
+    return PsiTreeUtil.getStubChildOfType(this, CirJsonObjectIdElement.class);
   }
 
   @Override
   @NotNull
   public List<CirJsonProperty> getPropertyList() {
-    return PsiTreeUtil.getChildrenOfTypeAsList(this, CirJsonProperty.class);
+    return PsiTreeUtil.getStubChildrenOfTypeAsList(this, CirJsonProperty.class);
   }
 
   @Override
@@ -10,6 +10,8 @@ import com.intellij.psi.util.PsiTreeUtil;
 import static org.cirjson.plugin.idea.CirJsonElementTypes.*;
 import org.cirjson.plugin.idea.psi.*;
 import com.intellij.navigation.ItemPresentation;
+import com.intellij.psi.stubs.IStubElementType;
+import org.cirjson.plugin.idea.psi.stubs.CirJsonPropertyStub;
 
 public class CirJsonPropertyImpl extends CirJsonPropertyMixin implements CirJsonProperty {
 
@@ -17,6 +19,10 @@ public class CirJsonPropertyImpl extends CirJsonPropertyMixin implements CirJson
     super(node);
   }
 
+  public CirJsonPropertyImpl(@NotNull CirJsonPropertyStub stub, @NotNull IStubElementType<?, ?> type) {
+    super(stub, type);
+  }
+
   public void accept(@NotNull CirJsonElementVisitor visitor) {
     visitor.visitProperty(this);
   }
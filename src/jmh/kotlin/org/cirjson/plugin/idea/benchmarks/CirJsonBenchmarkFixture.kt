@@ -0,0 +1,29 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import com.intellij.openapi.project.Project
+import com.intellij.testFramework.LightProjectDescriptor
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory
+import com.intellij.testFramework.runInEdtAndWait
+
+/**
+ * Light project fixture for benchmarks that need the application, e.g. to create a [com.intellij.lang.PsiBuilder] or
+ * PSI files.
+ */
+class CirJsonBenchmarkFixture {
+
+    private val myFixture: IdeaProjectTestFixture = IdeaTestFixtureFactory.getFixtureFactory()
+            .createLightFixtureBuilder(LightProjectDescriptor.EMPTY_PROJECT_DESCRIPTOR, "cirjson-benchmarks").fixture
+
+    val project: Project
+        get() = myFixture.project
+
+    fun setUp() {
+        runInEdtAndWait { myFixture.setUp() }
+    }
+
+    fun tearDown() {
+        runInEdtAndWait { myFixture.tearDown() }
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import java.util.*
+
+/**
+ * Generates synthetic CirJSON documents. The same shape, length and seed always produce the same text, so results of
+ * different runs can be compared.
+ */
+object CirJsonCorpus {
+
+    const val SEED = 0x5EEDL
+
+    private const val MAX_DEPTH = 64
+
+    private const val ESCAPES = "\\n\\t\\\"\\\\\\/\\b\\f\\r"
+
+    enum class Shape {
+
+        /**
+         * Objects and arrays nested [MAX_DEPTH] levels deep, repeated until the length is reached.
+         */
+        DEEP_NESTING,
+
+        /**
+         * A single object with many properties.
+         */
+        WIDE_OBJECT,
+
+        /**
+         * A single array with many scalar values.
+         */
+        LONG_ARRAY,
+
+        /**
+         * An array of strings where about half of the characters are escape sequences.
+         */
+        ESCAPE_DENSE
+
+    }
+
+    /**
+     * Generates a document of the shape that is at least [length] characters long.
+     */
+    fun generate(shape: Shape, length: Int, seed: Long = SEED): String {
+        return Generator(Random(seed), length).generate(shape)
+    }
+
+    private class Generator(private val myRandom: Random, private val myLength: Int) {
+
+        private val myBuilder = StringBuilder(myLength + 256)
+
+        private var myNextId = 1
+
+        fun generate(shape: Shape): String {
+            when (shape) {
+                Shape.DEEP_NESTING -> {
+                    openArray()
+
+                    while (myBuilder.length < myLength) {
+                        myBuilder.append(", ")
+                        nested(MAX_DEPTH)
+                    }
+
+                    myBuilder.append(']')
+                }
+
+                Shape.WIDE_OBJECT -> {
+                    openObject()
+                    var i = 0
+
+                    while (myBuilder.length < myLength) {
+                        myBuilder.append(", \"property").append(i++).append("\": ")
+                        scalar()
+                    }
+
+                    myBuilder.append('}')
+                }
+
+                Shape.LONG_ARRAY -> {
+                    openArray()
+
+                    while (myBuilder.length < myLength) {
+                        myBuilder.append(", ")
+                        scalar()
+                    }
+
+                    myBuilder.append(']')
+                }
+
+                Shape.ESCAPE_DENSE -> {
+                    openArray()
+
+                    while (myBuilder.length < myLength) {
+                        myBuilder.append(", ")
+                        escapedString(16 + myRandom.nextInt(112))
+                    }
+
+                    myBuilder.append(']')
+                }
+            }
+
+            return myBuilder.toString()
+        }
+
+        private fun nested(depth: Int) {
+            if (depth == 0) {
+                scalar()
+            } else if (depth % 2 == 0) {
+                openObject()
+                myBuilder.append(", \"child\": ")
+                nested(depth - 1)
+                myBuilder.append('}')
+            } else {
+                openArray()
+                myBuilder.append(", ")
+                nested(depth - 1)
+                myBuilder.append(']')
+            }
+        }
+
+        private fun openObject() {
+            myBuilder.append("{\"__cirJsonId__\": \"").append(myNextId++).append('"')
+        }
+
+        private fun openArray() {
+            myBuilder.append("[\"").append(myNextId++).append('"')
+        }
+
+        private fun scalar() {
+            when (myRandom.nextInt(4)) {
+                0 -> myBuilder.append(myRandom.nextInt())
+                1 -> myBuilder.append(myRandom.nextDouble())
+                2 -> myBuilder.append(myRandom.nextBoolean())
+                else -> {
+                    myBuilder.append('"')
+
+                    for (i in 0..<myRandom.nextInt(24)) {
+                        myBuilder.append('a' + myRandom.nextInt(26))
+                    }
+
+                    myBuilder.append('"')
+                }
+            }
+        }
+
+        private fun escapedString(length: Int) {
+            myBuilder.append('"')
+
+            for (i in 0..<length) {
+                when (myRandom.nextInt(4)) {
+                    0 -> {
+                        val escape = myRandom.nextInt(ESCAPES.length / 2) * 2
+                        myBuilder.append(ESCAPES, escape, escape + 2)
+                    }
+
+                    1 -> myBuilder.append("\\u").append(String.format("%04x", 0xA0 + myRandom.nextInt(0x2000)))
+                    else -> myBuilder.append('a' + myRandom.nextInt(26))
+                }
+            }
+
+            myBuilder.append('"')
+        }
+
+    }
+
+}
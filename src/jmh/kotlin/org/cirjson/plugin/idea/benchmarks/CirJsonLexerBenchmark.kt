@@ -0,0 +1,57 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import org.cirjson.plugin.idea.CirJsonFastLexer
+import org.cirjson.plugin.idea.CirJsonFlexLexer
+import org.openjdk.jmh.annotations.*
+
+@State(Scope.Benchmark)
+open class CirJsonLexerBenchmark {
+
+    @Param("DEEP_NESTING", "WIDE_OBJECT", "LONG_ARRAY", "ESCAPE_DENSE")
+    @JvmField
+    var shape = CirJsonCorpus.Shape.DEEP_NESTING
+
+    @Param("100000")
+    @JvmField
+    var length = 0
+
+    private lateinit var myText: String
+
+    private val myLexer = CirJsonFlexLexer()
+
+    private val myFastLexer = CirJsonFastLexer()
+
+    @Setup
+    fun setUp() {
+        myText = CirJsonCorpus.generate(shape, length)
+    }
+
+    /**
+     * Returns the number of tokens, so the loop cannot be eliminated.
+     */
+    @Benchmark
+    fun lex(): Int {
+        myLexer.reset(myText, 0, myText.length, CirJsonFlexLexer.YYINITIAL)
+        var count = 0
+
+        while (myLexer.advance() != null) {
+            count++
+        }
+
+        return count
+    }
+
+    @Benchmark
+    fun lexFast(): Int {
+        myFastLexer.start(myText)
+        var count = 0
+
+        while (myFastLexer.tokenType != null) {
+            count++
+            myFastLexer.advance()
+        }
+
+        return count
+    }
+
+}
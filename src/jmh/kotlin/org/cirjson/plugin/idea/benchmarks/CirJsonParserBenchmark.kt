@@ -0,0 +1,44 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import com.intellij.lang.ASTNode
+import com.intellij.lang.PsiBuilderFactory
+import org.cirjson.plugin.idea.CirJsonLexer
+import org.cirjson.plugin.idea.CirJsonParser
+import org.cirjson.plugin.idea.CirJsonParserDefinition
+import org.openjdk.jmh.annotations.*
+
+@State(Scope.Benchmark)
+open class CirJsonParserBenchmark {
+
+    @Param("DEEP_NESTING", "WIDE_OBJECT", "LONG_ARRAY", "ESCAPE_DENSE")
+    @JvmField
+    var shape = CirJsonCorpus.Shape.DEEP_NESTING
+
+    @Param("100000")
+    @JvmField
+    var length = 0
+
+    private val myFixture = CirJsonBenchmarkFixture()
+
+    private val myParserDefinition = CirJsonParserDefinition()
+
+    private lateinit var myText: String
+
+    @Setup
+    fun setUp() {
+        myFixture.setUp()
+        myText = CirJsonCorpus.generate(shape, length)
+    }
+
+    @TearDown
+    fun tearDown() {
+        myFixture.tearDown()
+    }
+
+    @Benchmark
+    fun parse(): ASTNode {
+        val builder = PsiBuilderFactory.getInstance().createBuilder(myParserDefinition, CirJsonLexer(), myText)
+        return CirJsonParser().parse(CirJsonParserDefinition.FILE, builder)
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import com.intellij.openapi.application.ReadAction
+import com.intellij.psi.PsiFileFactory
+import com.intellij.psi.util.PsiTreeUtil
+import org.cirjson.plugin.idea.CirJsonFileType
+import org.cirjson.plugin.idea.psi.impl.CirJsonPsiImplUtils
+import org.cirjson.plugin.idea.psi.impl.CirJsonStringLiteralMixin
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+
+@State(Scope.Benchmark)
+open class CirJsonStringLiteralBenchmark {
+
+    @Param("100000")
+    @JvmField
+    var length = 0
+
+    private val myFixture = CirJsonBenchmarkFixture()
+
+    private lateinit var myLiterals: List<CirJsonStringLiteralMixin>
+
+    @Setup
+    fun setUp() {
+        myFixture.setUp()
+        val text = CirJsonCorpus.generate(CirJsonCorpus.Shape.ESCAPE_DENSE, length)
+        myLiterals = ReadAction.compute<List<CirJsonStringLiteralMixin>, RuntimeException> {
+            val file = PsiFileFactory.getInstance(myFixture.project)
+                    .createFileFromText("corpus.cirjson", CirJsonFileType.INSTANCE, text)
+            PsiTreeUtil.findChildrenOfType(file, CirJsonStringLiteralMixin::class.java).toList()
+        }
+    }
+
+    @TearDown
+    fun tearDown() {
+        myFixture.tearDown()
+    }
+
+    @Benchmark
+    fun getTextFragments(blackhole: Blackhole) {
+        ReadAction.run<RuntimeException> {
+            for (literal in myLiterals) {
+                // drop the cached fragments, the decoding itself is measured
+                literal.subtreeChanged()
+                blackhole.consume(CirJsonPsiImplUtils.getTextFragments(literal))
+            }
+        }
+    }
+
+    @Benchmark
+    fun getValue(blackhole: Blackhole) {
+        ReadAction.run<RuntimeException> {
+            for (literal in myLiterals) {
+                literal.subtreeChanged()
+                blackhole.consume(CirJsonPsiImplUtils.getValue(literal))
+            }
+        }
+    }
+
+}
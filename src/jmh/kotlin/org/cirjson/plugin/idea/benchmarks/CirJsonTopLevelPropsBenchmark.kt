@@ -0,0 +1,34 @@
+package org.cirjson.plugin.idea.benchmarks
+
+import org.cirjson.plugin.idea.CirJsonFileType
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaFileValuesIndex
+import org.openjdk.jmh.annotations.*
+
+@State(Scope.Benchmark)
+open class CirJsonTopLevelPropsBenchmark {
+
+    @Param("DEEP_NESTING", "WIDE_OBJECT", "LONG_ARRAY", "ESCAPE_DENSE")
+    @JvmField
+    var shape = CirJsonCorpus.Shape.DEEP_NESTING
+
+    @Param("100000")
+    @JvmField
+    var length = 0
+
+    private lateinit var myText: String
+
+    @Setup
+    fun setUp() {
+        // $schema and $id come last, so the whole document has to be scanned
+        val corpus = CirJsonCorpus.generate(CirJsonCorpus.Shape.WIDE_OBJECT, 0)
+        val document = CirJsonCorpus.generate(shape, length)
+        myText = corpus.substring(0, corpus.length - 1) + ", \"document\": " + document +
+                ", \"\$schema\": \"http://example.com/schema\", \"\$id\": \"http://example.com/id\"}"
+    }
+
+    @Benchmark
+    fun readTopLevelProps(): Map<String, String> {
+        return CirJsonSchemaFileValuesIndex.readTopLevelProps(CirJsonFileType.INSTANCE, myText)
+    }
+
+}
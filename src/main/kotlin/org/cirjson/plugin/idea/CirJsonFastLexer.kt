@@ -0,0 +1,434 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.lexer.LexerBase
+import com.intellij.psi.TokenType
+import com.intellij.psi.tree.IElementType
+import com.intellij.util.text.CharArrayUtil
+
+/**
+ * Hand-written lexer producing the same tokens as [CirJsonLexer], meant for passes that scan whole files, like indexing
+ * and word scanning. ASCII characters are classified through a lookup table, other code points fall back to the same
+ * [Character] checks JFlex uses.
+ *
+ * Same as JFlex, the longest match wins and ties go to the rule declared first in `CirJsonLexer.flex`. The lexer has a
+ * single state, so it can be restarted at any token boundary.
+ */
+class CirJsonFastLexer : LexerBase() {
+
+    private var myBuffer: CharSequence = ""
+
+    private var myBufferEnd = 0
+
+    private var myTokenStart = 0
+
+    private var myTokenEnd = 0
+
+    private var myTokenType: IElementType? = null
+
+    override fun start(buffer: CharSequence, startOffset: Int, endOffset: Int, initialState: Int) {
+        myBuffer = buffer
+        myBufferEnd = endOffset
+        myTokenStart = startOffset
+        myTokenEnd = startOffset
+        locateToken()
+    }
+
+    override fun getState(): Int {
+        return 0
+    }
+
+    override fun getTokenType(): IElementType? {
+        return myTokenType
+    }
+
+    override fun getTokenStart(): Int {
+        return myTokenStart
+    }
+
+    override fun getTokenEnd(): Int {
+        return myTokenEnd
+    }
+
+    override fun advance() {
+        myTokenStart = myTokenEnd
+        locateToken()
+    }
+
+    override fun getBufferSequence(): CharSequence {
+        return myBuffer
+    }
+
+    override fun getBufferEnd(): Int {
+        return myBufferEnd
+    }
+
+    private fun locateToken() {
+        val start = myTokenStart
+
+        if (start >= myBufferEnd) {
+            myTokenType = null
+            myTokenEnd = myBufferEnd
+            return
+        }
+
+        when (val c = myBuffer[start]) {
+            '{' -> setToken(CirJsonElementTypes.L_CURLY, start + 1)
+            '}' -> setToken(CirJsonElementTypes.R_CURLY, start + 1)
+            '[' -> setToken(CirJsonElementTypes.L_BRACKET, start + 1)
+            ']' -> setToken(CirJsonElementTypes.R_BRACKET, start + 1)
+            ',' -> setToken(CirJsonElementTypes.COMMA, start + 1)
+            ':' -> setToken(CirJsonElementTypes.COLON, start + 1)
+
+            '"' -> if (CharArrayUtil.regionMatches(myBuffer, start, myBufferEnd, ID_KEY)) {
+                setToken(CirJsonElementTypes.ID_KEY, start + ID_KEY.length)
+            } else {
+                setToken(CirJsonElementTypes.DOUBLE_QUOTED_STRING, skipString(start, '"'))
+            }
+
+            '\'' -> setToken(CirJsonElementTypes.SINGLE_QUOTED_STRING, skipString(start, '\''))
+            't' -> setKeywordOrIdentifier(start, "true", CirJsonElementTypes.TRUE)
+            'f' -> setKeywordOrIdentifier(start, "false", CirJsonElementTypes.FALSE)
+            'n' -> setKeywordOrIdentifier(start, "null", CirJsonElementTypes.NULL)
+
+            '/' -> {
+                val identifierEnd = skipIdentifier(start)
+                val next = if (start + 1 < myBufferEnd) myBuffer[start + 1] else 0.toChar()
+                val commentEnd = when (next) {
+                    '/' -> skipLineComment(start + 2)
+                    '*' -> skipBlockComment(start + 2)
+                    else -> -1
+                }
+
+                if (commentEnd >= identifierEnd) {
+                    setToken(if (next == '/') CirJsonElementTypes.LINE_COMMENT else CirJsonElementTypes.BLOCK_COMMENT,
+                            commentEnd)
+                } else {
+                    setToken(CirJsonElementTypes.IDENTIFIER, identifierEnd)
+                }
+            }
+
+            '-', 'I', 'N', in '0'..'9' -> {
+                val identifierEnd = skipIdentifier(start)
+                val numberEnd = skipNumber(start)
+
+                if (numberEnd >= identifierEnd) {
+                    setToken(CirJsonElementTypes.NUMBER, numberEnd)
+                } else {
+                    setToken(CirJsonElementTypes.IDENTIFIER, identifierEnd)
+                }
+            }
+
+            else -> {
+                val codePoint = if (c.code < ASCII_SIZE) c.code else codePointAt(start)
+                // U+0085 is both a white space and an identifier part
+                val whiteSpaceEnd = if (isWhiteSpace(codePoint)) skipWhiteSpace(start) else -1
+                val identifierEnd = if (isIdentifierPart(codePoint)) skipIdentifier(start) else -1
+
+                if (whiteSpaceEnd != -1 && whiteSpaceEnd >= identifierEnd) {
+                    setToken(TokenType.WHITE_SPACE, whiteSpaceEnd)
+                } else if (identifierEnd != -1) {
+                    setToken(CirJsonElementTypes.IDENTIFIER, identifierEnd)
+                } else {
+                    setToken(TokenType.BAD_CHARACTER, start + Character.charCount(codePoint))
+                }
+            }
+        }
+    }
+
+    private fun setToken(type: IElementType, end: Int) {
+        myTokenType = type
+        myTokenEnd = end
+    }
+
+    private fun setKeywordOrIdentifier(start: Int, keyword: String, type: IElementType) {
+        val end = skipIdentifier(start)
+
+        if (end - start == keyword.length && CharArrayUtil.regionMatches(myBuffer, start, end, keyword)) {
+            setToken(type, end)
+        } else {
+            setToken(CirJsonElementTypes.IDENTIFIER, end)
+        }
+    }
+
+    /**
+     * Unlike [Character.codePointAt], does not read past the end of the buffer.
+     */
+    private fun codePointAt(index: Int): Int {
+        val c = myBuffer[index]
+
+        if (Character.isHighSurrogate(c) && index + 1 < myBufferEnd) {
+            val low = myBuffer[index + 1]
+
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(c, low)
+            }
+        }
+
+        return c.code
+    }
+
+    private fun skipWhiteSpace(start: Int): Int {
+        var pos = start
+
+        while (pos < myBufferEnd) {
+            val c = myBuffer[pos]
+
+            if (c.code < ASCII_SIZE) {
+                if (ourAsciiClasses[c.code] and WHITE_SPACE_CLASS == 0) {
+                    break
+                }
+
+                pos++
+            } else {
+                val codePoint = codePointAt(pos)
+
+                if (!isWhiteSpace(codePoint)) {
+                    break
+                }
+
+                pos += Character.charCount(codePoint)
+            }
+        }
+
+        return pos
+    }
+
+    private fun skipIdentifier(start: Int): Int {
+        var pos = start
+
+        while (pos < myBufferEnd) {
+            val c = myBuffer[pos]
+
+            if (c.code < ASCII_SIZE) {
+                if (ourAsciiClasses[c.code] and IDENTIFIER_CLASS == 0) {
+                    break
+                }
+
+                pos++
+            } else {
+                val codePoint = codePointAt(pos)
+
+                if (!isIdentifierPart(codePoint)) {
+                    break
+                }
+
+                pos += Character.charCount(codePoint)
+            }
+        }
+
+        return pos
+    }
+
+    /**
+     * Strings end at the closing quote or before a line break, a backslash only escapes a character on the same line.
+     */
+    private fun skipString(start: Int, quote: Char): Int {
+        var pos = start + 1
+
+        while (pos < myBufferEnd) {
+            when (myBuffer[pos]) {
+                quote -> return pos + 1
+
+                '\r', '\n' -> return pos
+
+                '\\' -> {
+                    if (pos + 1 >= myBufferEnd || myBuffer[pos + 1] == '\r' || myBuffer[pos + 1] == '\n') {
+                        return pos
+                    }
+
+                    pos += 2
+                }
+
+                else -> pos++
+            }
+        }
+
+        return myBufferEnd
+    }
+
+    /**
+     * Line comments end before a line terminator or an unpaired surrogate, which JFlex does not match with `.`.
+     */
+    private fun skipLineComment(start: Int): Int {
+        var pos = start
+
+        while (pos < myBufferEnd) {
+            val c = myBuffer[pos]
+
+            if (isLineTerminator(c)) {
+                break
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c) || pos + 1 >= myBufferEnd
+                        || !Character.isLowSurrogate(myBuffer[pos + 1])) {
+                    break
+                }
+
+                pos += 2
+            } else {
+                pos++
+            }
+        }
+
+        return pos
+    }
+
+    /**
+     * Follows the `BLOCK_COMMENT` rule, so an unterminated comment ends before its trailing run of stars.
+     */
+    private fun skipBlockComment(start: Int): Int {
+        var pos = start
+        var lastAccepted = start
+        var inStars = false
+
+        while (pos < myBufferEnd) {
+            val c = myBuffer[pos++]
+
+            if (c == '*') {
+                inStars = true
+            } else if (inStars && c == '/') {
+                return pos
+            } else {
+                inStars = false
+                lastAccepted = pos
+            }
+        }
+
+        return lastAccepted
+    }
+
+    /**
+     * Returns the end of the number starting at [start], or [start] if there is none.
+     */
+    private fun skipNumber(start: Int): Int {
+        var pos = start
+
+        if (myBuffer[pos] == '-') {
+            pos++
+
+            if (CharArrayUtil.regionMatches(myBuffer, pos, myBufferEnd, INFINITY)) {
+                return pos + INFINITY.length
+            }
+        } else if (CharArrayUtil.regionMatches(myBuffer, pos, myBufferEnd, INFINITY)) {
+            return pos + INFINITY.length
+        } else if (CharArrayUtil.regionMatches(myBuffer, pos, myBufferEnd, NAN)) {
+            return pos + NAN.length
+        }
+
+        if (!isDigit(pos)) {
+            return start
+        }
+
+        if (myBuffer[pos++] != '0') {
+            pos = skipDigits(pos)
+        }
+
+        if (pos < myBufferEnd && myBuffer[pos] == '.' && isDigit(pos + 1)) {
+            pos = skipDigits(pos + 2)
+        }
+
+        if (pos < myBufferEnd && (myBuffer[pos] == 'e' || myBuffer[pos] == 'E')) {
+            pos++
+
+            if (pos < myBufferEnd && (myBuffer[pos] == '+' || myBuffer[pos] == '-')) {
+                pos++
+            }
+
+            pos = skipDigits(pos)
+        }
+
+        return pos
+    }
+
+    private fun isDigit(index: Int): Boolean {
+        return index < myBufferEnd && myBuffer[index] in '0'..'9'
+    }
+
+    private fun skipDigits(start: Int): Int {
+        var pos = start
+
+        while (isDigit(pos)) {
+            pos++
+        }
+
+        return pos
+    }
+
+    companion object {
+
+        private const val ID_KEY = "\"__cirJsonId__\""
+
+        private const val INFINITY = "Infinity"
+
+        private const val NAN = "NaN"
+
+        private const val ASCII_SIZE = 128
+
+        private const val WHITE_SPACE_CLASS = 1
+
+        private const val IDENTIFIER_CLASS = 2
+
+        /**
+         * Characters allowed in identifiers besides Java identifier parts, see `IDENTIFIER` in `CirJsonLexer.flex`.
+         */
+        private const val IDENTIFIER_EXTRA_CHARS = "~!()*-./@^<>="
+
+        private val ourAsciiClasses = IntArray(ASCII_SIZE) {
+            var result = 0
+
+            if (isWhiteSpaceSlow(it)) {
+                result = result or WHITE_SPACE_CLASS
+            }
+
+            if (isIdentifierPartSlow(it)) {
+                result = result or IDENTIFIER_CLASS
+            }
+
+            result
+        }
+
+        private fun isWhiteSpace(codePoint: Int): Boolean {
+            return if (codePoint < ASCII_SIZE) {
+                ourAsciiClasses[codePoint] and WHITE_SPACE_CLASS != 0
+            } else {
+                isWhiteSpaceSlow(codePoint)
+            }
+        }
+
+        private fun isIdentifierPart(codePoint: Int): Boolean {
+            return if (codePoint < ASCII_SIZE) {
+                ourAsciiClasses[codePoint] and IDENTIFIER_CLASS != 0
+            } else {
+                isIdentifierPartSlow(codePoint)
+            }
+        }
+
+        /**
+         * JFlex `\s` is the Unicode `White_Space` property, which differs from [Character.isWhitespace] for a few code
+         * points.
+         */
+        private fun isWhiteSpaceSlow(codePoint: Int): Boolean {
+            return when (codePoint) {
+                in 0x09..0x0D, 0x20, 0x85, 0xA0, 0x1680, in 0x2000..0x200A -> true
+                0x2028, 0x2029, 0x202F, 0x205F, 0x3000 -> true
+                else -> false
+            }
+        }
+
+        private fun isIdentifierPartSlow(codePoint: Int): Boolean {
+            return Character.isJavaIdentifierPart(codePoint)
+                    || codePoint < ASCII_SIZE && IDENTIFIER_EXTRA_CHARS.indexOf(codePoint.toChar()) != -1
+        }
+
+        /**
+         * Characters not matched by `.` in JFlex.
+         */
+        private fun isLineTerminator(c: Char): Boolean {
+            return when (c) {
+                '\n', '\u000B', '\u000C', '\r', '\u0085', '\u2028', '\u2029' -> true
+                else -> false
+            }
+        }
+
+    }
+
+}
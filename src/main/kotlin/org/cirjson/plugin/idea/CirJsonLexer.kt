@@ -1,5 +1,23 @@
 package org.cirjson.plugin.idea
 
 import com.intellij.lexer.FlexAdapter
+import com.intellij.lexer.Lexer
+import com.intellij.openapi.util.registry.Registry
 
-class CirJsonLexer : FlexAdapter(CirJsonFlexLexer())
+class CirJsonLexer : FlexAdapter(CirJsonFlexLexer()) {
+
+    companion object {
+
+        const val FAST_LEXER_REGISTRY_KEY = "cirjson.fast.lexer"
+
+        /**
+         * Creates a lexer for passes that only scan tokens, like indexing and word scanning. Unless disabled in the
+         * registry, this is the hand-written [CirJsonFastLexer].
+         */
+        fun createScanningLexer(): Lexer {
+            return if (Registry.`is`(FAST_LEXER_REGISTRY_KEY, true)) CirJsonFastLexer() else CirJsonLexer()
+        }
+
+    }
+
+}
@@ -12,6 +12,7 @@ import com.intellij.psi.PsiFile
 import com.intellij.psi.tree.IFileElementType
 import com.intellij.psi.tree.TokenSet
 import org.cirjson.plugin.idea.psi.impl.CirJsonFileImpl
+import org.cirjson.plugin.idea.psi.stubs.CirJsonFileStubElementType
 
 class CirJsonParserDefinition : ParserDefinition {
 
@@ -50,7 +51,7 @@ class CirJsonParserDefinition : ParserDefinition {
     @Suppress("CompanionObjectInExtension")
     companion object {
 
-        val FILE = IFileElementType(CirJsonLanguage.INSTANCE)
+        val FILE = CirJsonFileStubElementType()
 
     }
 
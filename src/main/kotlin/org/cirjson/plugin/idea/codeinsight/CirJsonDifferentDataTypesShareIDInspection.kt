@@ -7,6 +7,7 @@ import com.intellij.openapi.project.Project
 import com.intellij.openapi.ui.popup.JBPopupFactory
 import com.intellij.openapi.ui.popup.PopupStep
 import com.intellij.openapi.ui.popup.util.BaseListPopupStep
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.Pair
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiElementVisitor
@@ -14,31 +15,27 @@ import com.intellij.psi.PsiFile
 import com.intellij.psi.SmartPointerManager
 import com.intellij.ui.IconManager
 import com.intellij.ui.PlatformIcons
-import com.intellij.util.containers.MultiMap
+import it.unimi.dsi.fastutil.objects.Object2ObjectFunction
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
 import org.cirjson.plugin.idea.CirJsonBundle
-import org.cirjson.plugin.idea.extentions.intellij.set
 import org.cirjson.plugin.idea.psi.*
 import javax.swing.Icon
 
 @Suppress("UnstableApiUsage", "DuplicatedCode")
 class CirJsonDifferentDataTypesShareIDInspection : LocalInspectionTool() {
 
-    private val myIds = MultiMap<String, Pair<PsiElement, DataType>>()
-
     override fun inspectionStarted(session: LocalInspectionToolSession, isOnTheFly: Boolean) {
-        myIds.clear()
+        session.putUserData(IDS_KEY, IdTable())
         super.inspectionStarted(session, isOnTheFly)
     }
 
-    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
-        return DifferentDataTypesShareIDValidatingElementVisitor()
+    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean,
+            session: LocalInspectionToolSession): PsiElementVisitor {
+        return DifferentDataTypesShareIDValidatingElementVisitor(getIds(session))
     }
 
     override fun inspectionFinished(session: LocalInspectionToolSession, holder: ProblemsHolder) {
-        for (entry in myIds.entrySet()) {
-            val entryKey = entry.key
-            val values = entry.value
-
+        for ((entryKey, values) in getIds(session)) {
             if (values.size < 2) {
                 continue
             }
@@ -55,6 +52,7 @@ class CirJsonDifferentDataTypesShareIDInspection : LocalInspectionTool() {
             }
         }
 
+        session.putUserData(IDS_KEY, null)
         super.inspectionFinished(session, holder)
     }
 
@@ -66,13 +64,25 @@ class CirJsonDifferentDataTypesShareIDInspection : LocalInspectionTool() {
 
     }
 
-    private inner class DifferentDataTypesShareIDValidatingElementVisitor : CirJsonElementVisitor() {
+    /**
+     * Open-addressing table from ID to the literals declaring it.
+     */
+    private class IdTable : Object2ObjectOpenHashMap<String, MutableList<Pair<PsiElement, DataType>>>() {
+
+        fun addId(id: String, element: PsiElement, type: DataType) {
+            computeIfAbsent(id, Object2ObjectFunction { ArrayList(2) }).add(Pair.create(element, type))
+        }
+
+    }
+
+    private class DifferentDataTypesShareIDValidatingElementVisitor(private val myIds: IdTable) :
+            CirJsonElementVisitor() {
 
         override fun visitObject(obj: CirJsonObject) {
             val idElement = obj.objectIdElement
 
             if (idElement != null) {
-                myIds[idElement.id] = Pair.create(idElement.stringLiteral, DataType.OBJECT)
+                myIds.addId(idElement.id, idElement.stringLiteral, DataType.OBJECT)
             }
 
             super.visitObject(obj)
@@ -83,7 +93,7 @@ class CirJsonDifferentDataTypesShareIDInspection : LocalInspectionTool() {
             val idElement = children.firstOrNull()
 
             if (idElement != null && idElement is CirJsonStringLiteral && !array.id.isNullOrEmpty()) {
-                myIds[array.id!!] = Pair.create(idElement, DataType.ARRAY)
+                myIds.addId(array.id!!, idElement, DataType.ARRAY)
             }
 
             super.visitArray(array)
@@ -164,6 +174,16 @@ class CirJsonDifferentDataTypesShareIDInspection : LocalInspectionTool() {
     @Suppress("CompanionObjectInExtension")
     companion object {
 
+        /**
+         * The IDs met in the currently inspected file. They are kept in the session instead of the tool, as the same
+         * tool instance inspects several files concurrently during batch inspection.
+         */
+        private val IDS_KEY = Key.create<IdTable>("CirJsonDifferentDataTypesShareIDInspection.ids")
+
+        private fun getIds(session: LocalInspectionToolSession): IdTable {
+            return session.getUserData(IDS_KEY) ?: session.putUserDataIfAbsent(IDS_KEY, IdTable())
+        }
+
         private fun hasDifferentDataTypesForId(values: Collection<Pair<PsiElement, DataType>>): Boolean {
             if (values.size <= 1) {
                 return false
@@ -6,8 +6,9 @@ import org.cirjson.plugin.idea.CirJsonElementTypes
 import org.cirjson.plugin.idea.CirJsonLexer
 import org.cirjson.plugin.idea.CirJsonTokenSets
 
-class CirJsonWordScanner : DefaultWordsScanner(CirJsonLexer(), TokenSet.create(CirJsonElementTypes.IDENTIFIER),
-        CirJsonTokenSets.CIRJSON_COMMENTS, CirJsonTokenSets.CIRJSON_LITERALS) {
+class CirJsonWordScanner : DefaultWordsScanner(CirJsonLexer.createScanningLexer(),
+        TokenSet.create(CirJsonElementTypes.IDENTIFIER), CirJsonTokenSets.CIRJSON_COMMENTS,
+        CirJsonTokenSets.CIRJSON_LITERALS) {
 
     init {
         setMayHaveFileRefsInLiterals(true)
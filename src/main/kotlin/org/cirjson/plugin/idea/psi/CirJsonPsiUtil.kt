@@ -4,6 +4,7 @@ import com.intellij.lang.ASTNode
 import com.intellij.lang.injection.InjectedLanguageManager
 import com.intellij.openapi.editor.Editor
 import com.intellij.openapi.editor.ScrollType
+import com.intellij.openapi.util.text.StringUtil
 import com.intellij.psi.PsiElement
 import com.intellij.psi.TokenType
 import com.intellij.psi.tree.IElementType
@@ -158,6 +159,42 @@ object CirJsonPsiUtil {
         return text
     }
 
+    /**
+     * Returns the value of the string literal, same as `StringUtil.unescapeStringCharacters(stripQuotes(text))`, but
+     * scans the text only once. When the literal has no escape sequences, the only allocation is the returned string.
+     *
+     * @param text presumably chars of a string literal token
+     */
+    fun unquoteAndUnescape(text: CharSequence): String {
+        val length = text.length
+
+        if (length == 0) {
+            return ""
+        }
+
+        val firstChar = text[0]
+        val quoted = firstChar == '\'' || firstChar == '"'
+        val start = if (quoted) 1 else 0
+        var hasEscapes = false
+        var escaped = false
+        var lastEscaped = false
+
+        for (i in start..<length) {
+            lastEscaped = escaped
+
+            if (escaped) {
+                escaped = false
+            } else if (text[i] == '\\') {
+                escaped = true
+                hasEscapes = true
+            }
+        }
+
+        val end = if (quoted && length > 1 && text[length - 1] == firstChar && !lastEscaped) length - 1 else length
+        val content = text.subSequence(start, end).toString()
+        return if (hasEscapes) StringUtil.unescapeStringCharacters(content) else content
+    }
+
     /**
      * Checks that character in given position is escaped with backslashes.
      *
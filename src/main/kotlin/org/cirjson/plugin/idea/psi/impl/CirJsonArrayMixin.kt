@@ -0,0 +1,14 @@
+package org.cirjson.plugin.idea.psi.impl
+
+import com.intellij.lang.ASTNode
+import com.intellij.psi.stubs.IStubElementType
+import org.cirjson.plugin.idea.psi.CirJsonArray
+import org.cirjson.plugin.idea.psi.stubs.CirJsonArrayStub
+
+abstract class CirJsonArrayMixin : CirJsonStubContainerImpl<CirJsonArrayStub>, CirJsonArray {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: CirJsonArrayStub, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
+
+}
@@ -7,6 +7,7 @@ import com.intellij.psi.FileViewProvider
 import com.intellij.psi.util.PsiTreeUtil
 import org.cirjson.plugin.idea.psi.CirJsonFile
 import org.cirjson.plugin.idea.psi.CirJsonValue
+import org.cirjson.plugin.idea.psi.stubs.CirJsonFileStub
 
 class CirJsonFileImpl(fileViewProvider: FileViewProvider, language: Language) : PsiFileBase(fileViewProvider, language),
         CirJsonFile {
@@ -16,7 +17,20 @@ class CirJsonFileImpl(fileViewProvider: FileViewProvider, language: Language) :
     }
 
     override val topLevelValue: CirJsonValue?
-        get() = PsiTreeUtil.getChildOfType(this, CirJsonValue::class.java)
+        get() {
+            // Literals have no stubs, so the AST is only skipped when the top-level value is a container
+            val fileStub = stub as? CirJsonFileStub
+
+            if (fileStub != null && fileStub.isTopLevelValueContainer) {
+                val stubValue = fileStub.childrenStubs.firstOrNull()?.psi as? CirJsonValue
+
+                if (stubValue != null) {
+                    return stubValue
+                }
+            }
+
+            return PsiTreeUtil.getChildOfType(this, CirJsonValue::class.java)
+        }
 
     override val allTopLevelValue: List<CirJsonValue>
         get() = PsiTreeUtil.getChildrenOfTypeAsList(this, CirJsonValue::class.java)
@@ -1,12 +1,18 @@
 package org.cirjson.plugin.idea.psi.impl
 
 import com.intellij.lang.ASTNode
+import com.intellij.psi.stubs.IStubElementType
 import com.intellij.psi.util.CachedValueProvider
 import com.intellij.psi.util.CachedValuesManager
 import org.cirjson.plugin.idea.psi.CirJsonObject
 import org.cirjson.plugin.idea.psi.CirJsonProperty
+import org.cirjson.plugin.idea.psi.stubs.CirJsonObjectStub
 
-abstract class CirJsonObjectMixin(node: ASTNode) : CirJsonContainerImpl(node), CirJsonObject {
+abstract class CirJsonObjectMixin : CirJsonStubContainerImpl<CirJsonObjectStub>, CirJsonObject {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: CirJsonObjectStub, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
 
     private val myPropertyCache = CachedValueProvider<Map<String, CirJsonProperty>> {
         val cache = hashMapOf<String, CirJsonProperty>()
@@ -5,11 +5,17 @@ import com.intellij.openapi.util.text.StringUtil
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiReference
 import com.intellij.psi.impl.source.resolve.reference.ReferenceProvidersRegistry
+import com.intellij.psi.stubs.IStubElementType
 import com.intellij.util.ArrayUtil
 import org.cirjson.plugin.idea.psi.CirJsonElementGenerator
 import org.cirjson.plugin.idea.psi.CirJsonProperty
+import org.cirjson.plugin.idea.psi.stubs.CirJsonPropertyStub
 
-abstract class CirJsonPropertyMixin(node: ASTNode) : CirJsonElementImpl(node), CirJsonProperty {
+abstract class CirJsonPropertyMixin : CirJsonStubElementImpl<CirJsonPropertyStub>, CirJsonProperty {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: CirJsonPropertyStub, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
 
     override fun setName(name: String): PsiElement {
         val generator = CirJsonElementGenerator(project)
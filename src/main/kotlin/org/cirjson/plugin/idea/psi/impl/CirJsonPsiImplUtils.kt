@@ -17,7 +17,19 @@ object CirJsonPsiImplUtils {
 
     @JvmStatic
     fun getName(property: CirJsonProperty): String {
-        return StringUtil.unescapeStringCharacters(CirJsonPsiUtil.stripQuotes(property.nameElement.text))
+        val stub = property.stub
+
+        if (stub != null) {
+            return stub.name
+        }
+
+        val nameElement = property.nameElement
+
+        if (nameElement is CirJsonStringLiteral) {
+            return nameElement.value
+        }
+
+        return CirJsonPsiUtil.unquoteAndUnescape(nameElement.node.chars)
     }
 
     @JvmStatic
@@ -83,6 +95,12 @@ object CirJsonPsiImplUtils {
 
     @JvmStatic
     fun getId(array: CirJsonArray): String? {
+        val stub = array.stub
+
+        if (stub != null) {
+            return stub.id
+        }
+
         val idLiteral = array.idLiteral ?: return null
 
         if (!idLiteral.isId) {
@@ -106,11 +124,23 @@ object CirJsonPsiImplUtils {
 
     @JvmStatic
     fun getId(obj: CirJsonObject): String? {
+        val stub = obj.stub
+
+        if (stub != null) {
+            return stub.id
+        }
+
         return obj.objectIdElement?.id
     }
 
     @JvmStatic
     fun getId(objectIdElement: CirJsonObjectIdElement): String {
+        val stub = objectIdElement.stub
+
+        if (stub != null) {
+            return stub.id
+        }
+
         return objectIdElement.stringLiteral.value
     }
 
@@ -141,15 +171,23 @@ object CirJsonPsiImplUtils {
 
     @JvmStatic
     fun getTextFragments(literal: CirJsonStringLiteral): List<Pair<TextRange, String>> {
-        val result = (literal.getUserData(STRING_FRAGMENTS).also {
-            if (it != null) {
-                return it
-            }
-        } ?: arrayListOf()).toMutableList()
+        literal.getUserData(STRING_FRAGMENTS)?.let { return it }
 
-        val text = literal.text
+        val text = literal.node.firstChildNode.chars
         val length = text.length
-        var pos = 1
+        val contentEnd = if (length > 1 && text[0] == text[length - 1]) length - 1 else length
+        var pos = StringUtil.indexOf(text, '\\', 1, contentEnd)
+
+        if (pos == -1) {
+            val fragments = if (contentEnd > 1) {
+                listOf(TextRange(1, contentEnd) to text.subSequence(1, contentEnd).toString())
+            } else {
+                emptyList()
+            }
+            return fragments.also { literal.putUserData(STRING_FRAGMENTS, it) }
+        }
+
+        val result = arrayListOf<Pair<TextRange, String>>()
         var unescapedSequenceStart = 1
 
         while (pos < length) {
@@ -159,7 +197,8 @@ object CirJsonPsiImplUtils {
             }
 
             if (unescapedSequenceStart != pos) {
-                result.add(TextRange(unescapedSequenceStart, pos) to text.substring(unescapedSequenceStart, pos))
+                result.add(TextRange(unescapedSequenceStart, pos) to text.subSequence(unescapedSequenceStart,
+                        pos).toString())
             }
 
             if (pos == length - 1) {
@@ -170,7 +209,7 @@ object CirJsonPsiImplUtils {
             when (val next = text[pos + 1]) {
                 '"', '\\', '/', 'b', 'f', 'n', 't', 'r' -> {
                     val idx = ourEscapesTable.indexOf(next)
-                    result.add(TextRange(pos, pos + 2) to ourEscapesTable.substring(idx, idx + 2))
+                    result.add(TextRange(pos, pos + 2) to ourEscapesTable.substring(idx + 1, idx + 2))
                     pos += 2
                 }
 
@@ -185,31 +224,37 @@ object CirJsonPsiImplUtils {
                         i++
                     }
 
-                    result.add(TextRange(pos, i) to text.substring(pos, i))
+                    result.add(TextRange(pos, i) to text.subSequence(pos, i).toString())
                     pos = i
                 }
 
                 else -> {
-                    result.add(TextRange(pos, pos + 2) to text.substring(pos, pos + 2))
+                    result.add(TextRange(pos, pos + 2) to text.subSequence(pos, pos + 2).toString())
                     pos += 2
                 }
             }
             unescapedSequenceStart = pos
         }
 
-        val contentEnd = if (text[0] == text[length - 1]) length - 1 else length
-
         if (unescapedSequenceStart < contentEnd) {
-            result.add(
-                    TextRange(unescapedSequenceStart, contentEnd) to text.substring(unescapedSequenceStart, contentEnd))
+            result.add(TextRange(unescapedSequenceStart, contentEnd) to text.subSequence(unescapedSequenceStart,
+                    contentEnd).toString())
         }
 
         return result.toImmutableList().also { literal.putUserData(STRING_FRAGMENTS, it) }
     }
 
+    /**
+     * The decoded value is cached on the literal until its subtree changes, as it is requested for every property name
+     * by lookups, schema walkers and inspections.
+     */
     @JvmStatic
     fun getValue(literal: CirJsonStringLiteral): String {
-        return StringUtil.unescapeStringCharacters(CirJsonPsiUtil.stripQuotes(literal.text))
+        literal.getUserData(STRING_VALUE)?.let { return it }
+
+        val value = CirJsonPsiUtil.unquoteAndUnescape(literal.node.firstChildNode.chars)
+        literal.putUserData(STRING_VALUE, value)
+        return value
     }
 
     @JvmStatic
@@ -240,6 +285,8 @@ object CirJsonPsiImplUtils {
 
     internal val STRING_FRAGMENTS = Key<List<Pair<TextRange, String>>>("CirJSON string fragments")
 
+    internal val STRING_VALUE = Key<String>("CirJSON string value")
+
     private const val ourEscapesTable = "\"\"\\\\//b\bf\u000cn\nr\rt\t"
 
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ abstract class CirJsonStringLiteralMixin(node: ASTNode) : CirJsonLiteralImpl(nod
 
     override fun subtreeChanged() {
         putUserData(CirJsonPsiImplUtils.STRING_FRAGMENTS, null)
+        putUserData(CirJsonPsiImplUtils.STRING_VALUE, null)
     }
 
 }
\ No newline at end of file
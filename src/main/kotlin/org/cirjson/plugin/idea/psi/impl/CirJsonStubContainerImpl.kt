@@ -0,0 +1,41 @@
+package org.cirjson.plugin.idea.psi.impl
+
+import com.intellij.lang.ASTNode
+import com.intellij.navigation.ItemPresentation
+import com.intellij.psi.PsiElementVisitor
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.stubs.StubElement
+import org.cirjson.plugin.idea.psi.CirJsonContainer
+import org.cirjson.plugin.idea.psi.CirJsonElementVisitor
+
+/**
+ * Base of the stub based containers. They can't extend [CirJsonContainerImpl], so this keeps the behaviour they had
+ * through it and [CirJsonElementImpl].
+ */
+abstract class CirJsonStubContainerImpl<T : StubElement<*>> : CirJsonStubElementImpl<T>, CirJsonContainer {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: T, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
+
+    open fun accept(visitor: CirJsonElementVisitor) {
+        visitor.visitContainer(this)
+    }
+
+    override fun accept(visitor: PsiElementVisitor) {
+        if (visitor is CirJsonElementVisitor) {
+            accept(visitor)
+        } else {
+            super.accept(visitor)
+        }
+    }
+
+    override fun getName(): String {
+        return super.getName()!!
+    }
+
+    override fun getPresentation(): ItemPresentation {
+        return super.getPresentation()!!
+    }
+
+}
\ No newline at end of file
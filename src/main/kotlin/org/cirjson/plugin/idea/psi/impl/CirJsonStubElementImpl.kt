@@ -0,0 +1,24 @@
+package org.cirjson.plugin.idea.psi.impl
+
+import com.intellij.extapi.psi.StubBasedPsiElementBase
+import com.intellij.lang.ASTNode
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.stubs.StubElement
+import org.cirjson.plugin.idea.psi.CirJsonElement
+
+open class CirJsonStubElementImpl<T : StubElement<*>> : StubBasedPsiElementBase<T>, CirJsonElement {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: T, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
+
+    override fun getParent(): PsiElement {
+        return parentByStub
+    }
+
+    override fun toString(): String {
+        return this::class.simpleName!!.removeSuffix("Impl")
+    }
+
+}
@@ -0,0 +1,9 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.stubs.StubBase
+import com.intellij.psi.stubs.StubElement
+import org.cirjson.plugin.idea.psi.CirJsonArray
+
+class CirJsonArrayStub(parent: StubElement<*>?, elementType: IStubElementType<*, *>, val id: String?) :
+        StubBase<CirJsonArray>(parent, elementType)
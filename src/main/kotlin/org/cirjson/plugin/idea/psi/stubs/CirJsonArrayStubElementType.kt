@@ -0,0 +1,37 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import com.intellij.psi.tree.IElementType
+import org.cirjson.plugin.idea.CirJsonElementTypes
+import org.cirjson.plugin.idea.psi.CirJsonArray
+import org.cirjson.plugin.idea.psi.impl.CirJsonArrayImpl
+
+class CirJsonArrayStubElementType(debugName: String) :
+        CirJsonContainerStubElementType<CirJsonArrayStub, CirJsonArray>(debugName) {
+
+    override val openingBrace: IElementType
+        get() = CirJsonElementTypes.L_BRACKET
+
+    override val closingBrace: IElementType
+        get() = CirJsonElementTypes.R_BRACKET
+
+    override fun createPsi(stub: CirJsonArrayStub): CirJsonArray {
+        return CirJsonArrayImpl(stub, this)
+    }
+
+    override fun createStub(psi: CirJsonArray, parentStub: StubElement<out PsiElement>?): CirJsonArrayStub {
+        return CirJsonArrayStub(parentStub, this, psi.id)
+    }
+
+    override fun serialize(stub: CirJsonArrayStub, dataStream: StubOutputStream) {
+        dataStream.writeName(stub.id)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): CirJsonArrayStub {
+        return CirJsonArrayStub(parentStub, this, dataStream.readNameString())
+    }
+
+}
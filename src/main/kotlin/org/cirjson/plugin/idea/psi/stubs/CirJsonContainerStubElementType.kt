@@ -0,0 +1,81 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.lang.ASTNode
+import com.intellij.lang.Language
+import com.intellij.lang.PsiBuilderFactory
+import com.intellij.openapi.project.Project
+import com.intellij.psi.PsiElement
+import com.intellij.psi.impl.source.tree.SharedImplUtil
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.tree.ICustomParsingType
+import com.intellij.psi.tree.IElementType
+import com.intellij.psi.tree.IReparseableElementTypeBase
+import com.intellij.util.CharTable
+import org.cirjson.plugin.idea.CirJsonElementTypes
+import org.cirjson.plugin.idea.CirJsonLexer
+import org.cirjson.plugin.idea.CirJsonParser
+import org.cirjson.plugin.idea.CirJsonParserDefinition
+
+/**
+ * Element type of objects and arrays. When an edit stays inside a single container and keeps its braces balanced, only
+ * that container is reparsed instead of the closest enclosing block the platform can find.
+ */
+abstract class CirJsonContainerStubElementType<S : StubElement<P>, P : PsiElement>(debugName: String) :
+        CirJsonStubElementType<S, P>(debugName), IReparseableElementTypeBase, ICustomParsingType {
+
+    /**
+     * The token opening the container. Resolved lazily, as the stub element types are created before the tokens in
+     * [CirJsonElementTypes].
+     */
+    protected abstract val openingBrace: IElementType
+
+    protected abstract val closingBrace: IElementType
+
+    override fun isReparseable(currentNode: ASTNode, newText: CharSequence, fileLanguage: Language,
+            project: Project): Boolean {
+        // the lexer the container is parsed with, so that the braces are found where the parser finds them
+        val lexer = CirJsonLexer()
+        lexer.start(newText)
+
+        if (lexer.tokenType !== openingBrace) {
+            return false
+        }
+
+        val openBraces = ArrayList<IElementType>()
+
+        while (true) {
+            val token = lexer.tokenType ?: return false
+
+            if (token === CirJsonElementTypes.L_CURLY || token === CirJsonElementTypes.L_BRACKET) {
+                openBraces.add(token)
+            } else if (token === CirJsonElementTypes.R_CURLY || token === CirJsonElementTypes.R_BRACKET) {
+                val expected = if (token === CirJsonElementTypes.R_CURLY) {
+                    CirJsonElementTypes.L_CURLY
+                } else {
+                    CirJsonElementTypes.L_BRACKET
+                }
+
+                if (openBraces.isEmpty() || openBraces.removeAt(openBraces.lastIndex) !== expected) {
+                    return false
+                }
+            }
+
+            lexer.advance()
+
+            if (openBraces.isEmpty()) {
+                // the container must end exactly where the new text ends
+                return token === closingBrace && lexer.tokenType == null
+            }
+        }
+    }
+
+    override fun parse(text: CharSequence, table: CharTable): ASTNode {
+        val builder = PsiBuilderFactory.getInstance().createBuilder(CirJsonParserDefinition(), CirJsonLexer(), text)
+        return CirJsonParser().parse(this, builder)
+    }
+
+    override fun parseContents(chameleon: ASTNode): ASTNode? {
+        return parse(chameleon.chars, SharedImplUtil.findCharTableByTree(chameleon)).firstChildNode
+    }
+
+}
@@ -0,0 +1,10 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.stubs.PsiFileStubImpl
+import org.cirjson.plugin.idea.psi.CirJsonFile
+
+/**
+ * The stub of a CirJSON file. Literals have no stubs, so the stub remembers whether the first top-level value is a
+ * container, in which case it's the first child stub.
+ */
+class CirJsonFileStub(file: CirJsonFile?, val isTopLevelValueContainer: Boolean) : PsiFileStubImpl<CirJsonFile>(file)
@@ -0,0 +1,51 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiFile
+import com.intellij.psi.StubBuilder
+import com.intellij.psi.stubs.DefaultStubBuilder
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import com.intellij.psi.tree.IStubFileElementType
+import com.intellij.psi.util.PsiTreeUtil
+import org.cirjson.plugin.idea.CirJsonLanguage
+import org.cirjson.plugin.idea.psi.CirJsonContainer
+import org.cirjson.plugin.idea.psi.CirJsonFile
+import org.cirjson.plugin.idea.psi.CirJsonValue
+
+class CirJsonFileStubElementType : IStubFileElementType<CirJsonFileStub>(CirJsonLanguage.INSTANCE) {
+
+    override fun getExternalId(): String {
+        return "cirjson.FILE"
+    }
+
+    override fun getStubVersion(): Int {
+        return STUB_VERSION
+    }
+
+    override fun getBuilder(): StubBuilder {
+        return object : DefaultStubBuilder() {
+
+            override fun createStubForFile(file: PsiFile): StubElement<*> {
+                val topLevelValue = PsiTreeUtil.getChildOfType(file, CirJsonValue::class.java)
+                return CirJsonFileStub(file as CirJsonFile, topLevelValue is CirJsonContainer)
+            }
+
+        }
+    }
+
+    override fun serialize(stub: CirJsonFileStub, dataStream: StubOutputStream) {
+        dataStream.writeBoolean(stub.isTopLevelValueContainer)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): CirJsonFileStub {
+        return CirJsonFileStub(null, dataStream.readBoolean())
+    }
+
+    companion object {
+
+        private const val STUB_VERSION = 2
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import org.cirjson.plugin.idea.psi.CirJsonObjectIdElement
+import org.cirjson.plugin.idea.psi.impl.CirJsonObjectIdElementImpl
+
+class CirJsonObjectIdElementStubElementType(debugName: String) :
+        CirJsonStubElementType<CirJsonObjectIdElementStub, CirJsonObjectIdElement>(debugName) {
+
+    override fun createPsi(stub: CirJsonObjectIdElementStub): CirJsonObjectIdElement {
+        return CirJsonObjectIdElementImpl(stub, this)
+    }
+
+    override fun createStub(psi: CirJsonObjectIdElement,
+            parentStub: StubElement<out PsiElement>?): CirJsonObjectIdElementStub {
+        return CirJsonObjectIdElementStub(parentStub, this, psi.id)
+    }
+
+    override fun serialize(stub: CirJsonObjectIdElementStub, dataStream: StubOutputStream) {
+        dataStream.writeName(stub.id)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): CirJsonObjectIdElementStub {
+        return CirJsonObjectIdElementStub(parentStub, this, dataStream.readNameString()!!)
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import com.intellij.psi.tree.IElementType
+import org.cirjson.plugin.idea.CirJsonElementTypes
+import org.cirjson.plugin.idea.psi.CirJsonObject
+import org.cirjson.plugin.idea.psi.impl.CirJsonObjectImpl
+
+class CirJsonObjectStubElementType(debugName: String) :
+        CirJsonContainerStubElementType<CirJsonObjectStub, CirJsonObject>(debugName) {
+
+    override val openingBrace: IElementType
+        get() = CirJsonElementTypes.L_CURLY
+
+    override val closingBrace: IElementType
+        get() = CirJsonElementTypes.R_CURLY
+
+    override fun createPsi(stub: CirJsonObjectStub): CirJsonObject {
+        return CirJsonObjectImpl(stub, this)
+    }
+
+    override fun createStub(psi: CirJsonObject, parentStub: StubElement<out PsiElement>?): CirJsonObjectStub {
+        return CirJsonObjectStub(parentStub, this, psi.id)
+    }
+
+    override fun serialize(stub: CirJsonObjectStub, dataStream: StubOutputStream) {
+        dataStream.writeName(stub.id)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): CirJsonObjectStub {
+        return CirJsonObjectStub(parentStub, this, dataStream.readNameString())
+    }
+
+}
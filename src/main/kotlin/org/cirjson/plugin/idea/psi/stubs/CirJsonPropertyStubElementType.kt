@@ -0,0 +1,29 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import org.cirjson.plugin.idea.psi.CirJsonProperty
+import org.cirjson.plugin.idea.psi.impl.CirJsonPropertyImpl
+
+class CirJsonPropertyStubElementType(debugName: String) :
+        CirJsonStubElementType<CirJsonPropertyStub, CirJsonProperty>(debugName) {
+
+    override fun createPsi(stub: CirJsonPropertyStub): CirJsonProperty {
+        return CirJsonPropertyImpl(stub, this)
+    }
+
+    override fun createStub(psi: CirJsonProperty, parentStub: StubElement<out PsiElement>?): CirJsonPropertyStub {
+        return CirJsonPropertyStub(parentStub, this, psi.name)
+    }
+
+    override fun serialize(stub: CirJsonPropertyStub, dataStream: StubOutputStream) {
+        dataStream.writeName(stub.name)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): CirJsonPropertyStub {
+        return CirJsonPropertyStub(parentStub, this, dataStream.readNameString()!!)
+    }
+
+}
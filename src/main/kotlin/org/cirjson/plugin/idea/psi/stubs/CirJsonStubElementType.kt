@@ -0,0 +1,19 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.stubs.IndexSink
+import com.intellij.psi.stubs.StubElement
+import org.cirjson.plugin.idea.CirJsonLanguage
+
+abstract class CirJsonStubElementType<S : StubElement<P>, P : PsiElement>(debugName: String) :
+        IStubElementType<S, P>(debugName, CirJsonLanguage.INSTANCE) {
+
+    override fun getExternalId(): String {
+        return "cirjson.$this"
+    }
+
+    override fun indexStub(stub: S, sink: IndexSink) {
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.cirjson.plugin.idea.psi.stubs
+
+import com.intellij.psi.tree.IElementType
+
+/**
+ * Element type factory used by the generated `CirJsonElementTypes` for the rules that have stubs.
+ */
+object CirJsonStubElementTypes {
+
+    @JvmStatic
+    fun create(debugName: String): IElementType {
+        return when (debugName) {
+            "ARRAY" -> CirJsonArrayStubElementType(debugName)
+            "OBJECT" -> CirJsonObjectStubElementType(debugName)
+            "OBJECT_ID_ELEMENT" -> CirJsonObjectIdElementStubElementType(debugName)
+            "PROPERTY" -> CirJsonPropertyStubElementType(debugName)
+            else -> throw IllegalArgumentException("Unknown stub element type: $debugName")
+        }
+    }
+
+}
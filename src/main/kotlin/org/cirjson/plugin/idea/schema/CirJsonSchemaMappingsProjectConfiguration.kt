@@ -4,10 +4,12 @@ import com.intellij.openapi.components.PersistentStateComponent
 import com.intellij.openapi.components.State
 import com.intellij.openapi.components.Storage
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.ModificationTracker
+import com.intellij.openapi.util.SimpleModificationTracker
 import com.intellij.openapi.util.io.FileUtil
 import com.intellij.openapi.util.text.StringUtil
-import com.intellij.openapi.vfs.VfsUtil
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.containers.CollectionFactory
 import com.intellij.util.xmlb.annotations.Tag
 import com.intellij.util.xmlb.annotations.XCollection
 import org.cirjson.plugin.idea.CirJsonBundle
@@ -18,30 +20,44 @@ import java.util.*
 
 @State(name = "CirJsonSchemaMappingsProjectConfiguration", storages = [Storage("cirJsonSchemas.xml")])
 open class CirJsonSchemaMappingsProjectConfiguration(private val myProject: Project) :
-        PersistentStateComponent<CirJsonSchemaMappingsProjectConfiguration.MyState> {
+        PersistentStateComponent<CirJsonSchemaMappingsProjectConfiguration.MyState>, ModificationTracker {
 
     @Volatile
     var myState = MyState()
+        set(value) {
+            field = value
+            dropIndex()
+        }
 
-    fun findMappingForFile(file: VirtualFile?): UserDefinedCirJsonSchemaConfiguration? {
-        val projectBaseDir = myProject.baseDir
-
-        for (configuration in myState.myState.values) {
-            for (pattern in configuration.patterns!!) {
-                if (pattern.mappingKind != CirJsonMappingKind.FILE) {
-                    continue
-                }
+    @Volatile
+    private var myIndex: MappingsIndex? = null
 
-                val relativeFile = VfsUtil.findRelativeFile(projectBaseDir, *pattern.pathParts)
+    private val myModificationTracker = SimpleModificationTracker()
 
-                if (relativeFile == file
-                        || file!!.url == UserDefinedCirJsonSchemaConfiguration.Item.neutralizePath(pattern.path)) {
-                    return configuration
-                }
-            }
+    private val index: MappingsIndex
+        get() {
+            return myIndex ?: MappingsIndex(myProject.basePath, myState.myState.values).also { myIndex = it }
         }
 
-        return null
+    /**
+     * Returns the first configuration having a FILE mapping for the file.
+     */
+    fun findMappingForFile(file: VirtualFile?): UserDefinedCirJsonSchemaConfiguration? {
+        file ?: return null
+        return index.findFileMapping(file)
+    }
+
+    /**
+     * Drops the lookup structures of the mappings. Must be called after changing the patterns of a configuration in
+     * place; replacing, adding and removing configurations drops them automatically.
+     */
+    fun dropIndex() {
+        myIndex = null
+        myModificationTracker.incModificationCount()
+    }
+
+    override fun getModificationCount(): Long {
+        return myModificationTracker.modificationCount
     }
 
     override fun getState(): MyState? {
@@ -80,12 +96,14 @@ open class CirJsonSchemaMappingsProjectConfiguration(private val myProject: Proj
         }
 
         (myState.myState as MutableMap)[name] = configuration
+        dropIndex()
     }
 
     fun removeConfiguration(configuration: UserDefinedCirJsonSchemaConfiguration) {
         for (entry in myState.myState) {
             if (entry.value == configuration) {
                 (myState.myState as MutableMap).remove(entry.key)
+                dropIndex()
                 return
             }
         }
@@ -138,6 +156,60 @@ open class CirJsonSchemaMappingsProjectConfiguration(private val myProject: Proj
 
     }
 
+    /**
+     * Lookup structures for the FILE mappings of all the configurations, so that finding the mapping of a file doesn't
+     * look up every mapped path in the VFS. FILE mappings are kept in hash maps by URL and by path. The index is rebuilt
+     * after the configurations change.
+     */
+    private class MappingsIndex(basePath: String?, configurations: Collection<UserDefinedCirJsonSchemaConfiguration>) {
+
+        private val myFilesByUrl = HashMap<String, Int>()
+
+        private val myFilesByPath = CollectionFactory.createFilePathMap<Int>()
+
+        private val myConfigurations = configurations.toList()
+
+        init {
+            for ((i, configuration) in myConfigurations.withIndex()) {
+                for (pattern in configuration.patterns!!) {
+                    when (pattern.mappingKind) {
+                        CirJsonMappingKind.FILE -> {
+                            myFilesByUrl.putIfAbsent(UserDefinedCirJsonSchemaConfiguration.Item.neutralizePath(
+                                    pattern.path), i)
+
+                            if (basePath != null) {
+                                myFilesByPath.putIfAbsent(resolvePath(basePath, pattern), i)
+                            }
+                        }
+
+                        CirJsonMappingKind.DIRECTORY, CirJsonMappingKind.PATTERN -> {}
+                    }
+                }
+            }
+        }
+
+        fun findFileMapping(file: VirtualFile): UserDefinedCirJsonSchemaConfiguration? {
+            val byUrl = myFilesByUrl[file.url] ?: Int.MAX_VALUE
+            val byPath = myFilesByPath[file.path] ?: Int.MAX_VALUE
+            val index = minOf(byUrl, byPath)
+            return if (index == Int.MAX_VALUE) null else myConfigurations[index]
+        }
+
+        /**
+         * Resolves the path of the mapping against the project directory the same way as
+         * `VfsUtil.findRelativeFile(projectBaseDir, *pattern.pathParts)`, but without looking up the file.
+         */
+        private fun resolvePath(basePath: String, pattern: UserDefinedCirJsonSchemaConfiguration.Item): String {
+            val parts = pattern.pathParts
+            return if (parts.isEmpty()) {
+                FileUtil.toCanonicalPath(basePath)
+            } else {
+                FileUtil.toCanonicalPath("$basePath/${parts.joinToString("/")}")
+            }
+        }
+
+    }
+
     companion object {
 
         fun getInstance(project: Project): CirJsonSchemaMappingsProjectConfiguration {
@@ -0,0 +1,205 @@
+package org.cirjson.plugin.idea.schema
+
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.PatternUtil
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import java.util.*
+import java.util.regex.Pattern
+
+/**
+ * Matches files against the masks of PATTERN mappings, all at once. Each mask comes with an id, and a lookup returns
+ * the ids of all the masks matching the file:
+ *
+ * * masks without wildcards go into a hash map,
+ * * masks made of plain characters, `*` and `?` are compiled into a single automaton, which is run once over the name,
+ * * the few remaining masks, with regular expression characters or with a `/`, are matched with their own regex.
+ *
+ * A mask matches exactly the files the predicate built for it by [UserDefinedCirJsonSchemaConfiguration] would match:
+ * masks without a `/` are matched against the name of the file, and other masks against its path.
+ */
+class CirJsonSchemaPatternMatcher(masks: List<Pair<String, Int>>) {
+
+    private val myLiterals = HashMap<String, IntArrayList>()
+
+    private val myKinds = IntArrayList()
+
+    private val myChars = StringBuilder()
+
+    /**
+     * Ids of the masks accepted by each state, or `null` for states that are not accepting.
+     */
+    private val myAcceptedIds = ArrayList<IntArrayList?>()
+
+    private val myStarts = IntArrayList()
+
+    private val myRegexes = ArrayList<Pair<Pattern, Boolean>>()
+
+    private val myRegexIds = IntArrayList()
+
+    init {
+        val wildcardMasks = LinkedHashMap<String, IntArrayList>()
+
+        for ((text, id) in masks) {
+            val mask = FileUtil.toSystemIndependentName(text)
+
+            if (mask.isEmpty()) {
+                continue
+            }
+
+            if (mask.none { isSpecial(it) }) {
+                if ('*' in mask || '?' in mask) {
+                    wildcardMasks.computeIfAbsent(mask) { IntArrayList() }.add(id)
+                } else {
+                    myLiterals.computeIfAbsent(mask) { IntArrayList() }.add(id)
+                }
+            } else if ('/' in mask) {
+                myRegexes.add(PatternUtil.compileSafe("*/${PatternUtil.convertToRegex(mask)}", PatternUtil.NOTHING)
+                        to true)
+                myRegexIds.add(id)
+            } else {
+                myRegexes.add(PatternUtil.fromMask(mask) to false)
+                myRegexIds.add(id)
+            }
+        }
+
+        for ((mask, ids) in wildcardMasks) {
+            myStarts.add(myKinds.size)
+
+            for (c in mask) {
+                myKinds.add(when (c) {
+                    '*' -> STAR
+                    '?' -> ANY
+                    else -> LITERAL
+                })
+                myChars.append(c)
+                myAcceptedIds.add(null)
+            }
+
+            myKinds.add(ACCEPT)
+            myChars.append(0.toChar())
+            myAcceptedIds.add(ids)
+        }
+    }
+
+    /**
+     * Returns whether any of the masks matches the [file].
+     */
+    fun matches(file: VirtualFile): Boolean {
+        return !findMatches(file).isEmpty
+    }
+
+    /**
+     * Returns the ids of the masks matching the [file].
+     */
+    fun findMatches(file: VirtualFile): BitSet {
+        val result = BitSet()
+        val name = file.name
+        myLiterals[name]?.let { addAll(result, it) }
+        findWildcardMatches(name, result)
+
+        for (i in myRegexes.indices) {
+            val (pattern, matchPath) = myRegexes[i]
+
+            if (CirJsonSchemaObject.matchPattern(pattern, if (matchPath) file.path else name)) {
+                result.set(myRegexIds.getInt(i))
+            }
+        }
+
+        return result
+    }
+
+    private fun findWildcardMatches(name: String, result: BitSet) {
+        if (myStarts.isEmpty()) {
+            return
+        }
+
+        val marks = IntArray(myKinds.size) { -1 }
+        var current = IntArrayList()
+        var next = IntArrayList()
+
+        for (i in 0..<myStarts.size) {
+            addState(myStarts.getInt(i), current, marks, 0)
+        }
+
+        for (i in name.indices) {
+            val c = name[i]
+
+            for (j in 0..<current.size) {
+                val state = current.getInt(j)
+
+                when (myKinds.getInt(state)) {
+                    LITERAL -> if (myChars[state] == c) addState(state + 1, next, marks, i + 1)
+                    ANY -> if (!isLineTerminator(c)) addState(state + 1, next, marks, i + 1)
+                    STAR -> if (!isLineTerminator(c)) addState(state, next, marks, i + 1)
+                }
+            }
+
+            if (next.isEmpty()) {
+                return
+            }
+
+            current.clear()
+            val swap = current
+            current = next
+            next = swap
+        }
+
+        for (i in 0..<current.size) {
+            myAcceptedIds[current.getInt(i)]?.let { addAll(result, it) }
+        }
+    }
+
+    /**
+     * Adds the state and the states following the stars it starts with, since stars may match nothing.
+     */
+    private fun addState(state: Int, states: IntArrayList, marks: IntArray, generation: Int) {
+        var current = state
+
+        while (marks[current] != generation) {
+            marks[current] = generation
+            states.add(current)
+
+            if (myKinds.getInt(current) != STAR) {
+                break
+            }
+
+            current++
+        }
+    }
+
+    private fun addAll(result: BitSet, ids: IntArrayList) {
+        for (i in 0..<ids.size) {
+            result.set(ids.getInt(i))
+        }
+    }
+
+    private companion object {
+
+        const val LITERAL = 0
+
+        const val ANY = 1
+
+        const val STAR = 2
+
+        const val ACCEPT = 3
+
+        /**
+         * Returns whether the character of a mask may not be matched literally by the regex of the mask, apart from the
+         * `*` and `?` wildcards.
+         */
+        fun isSpecial(c: Char): Boolean {
+            return c == '/' || c.isWhitespace() || c in "\\^$|+()[]{}"
+        }
+
+        /**
+         * Returns whether the character is not matched by `.` in a regex, like the wildcards of the regex of a mask.
+         */
+        fun isLineTerminator(c: Char): Boolean {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029'
+        }
+
+    }
+
+}
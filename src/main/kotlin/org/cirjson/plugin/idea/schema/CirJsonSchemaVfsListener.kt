@@ -22,6 +22,7 @@ import com.intellij.util.messages.MessageBusConnection
 import com.intellij.util.messages.Topic
 import com.jetbrains.rd.util.Callable
 import org.cirjson.plugin.idea.CirJsonFileType
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaRefGraph
 import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaServiceImpl
 
 class CirJsonSchemaVfsListener private constructor(updater: CirJsonSchemaUpdater) :
@@ -54,8 +55,10 @@ class CirJsonSchemaVfsListener private constructor(updater: CirJsonSchemaUpdater
             }
 
             val scope = HashSet(myDirtySchemas)
+            val refGraph = CirJsonSchemaRefGraph.getInstance(myProject)
 
-            if (scope.any { myService.possiblyHasReference(it.name) }) {
+            if (scope.any { myService.possiblyHasReference(it.name) || refGraph.isReferenced(it) }) {
+                refGraph.invalidate(scope)
                 myProject.messageBus.syncPublisher(CIRJSON_DEPS_CHANGED).run()
                 CirJsonDependencyModificationTracker.forProject(myProject).incModificationCount()
             }
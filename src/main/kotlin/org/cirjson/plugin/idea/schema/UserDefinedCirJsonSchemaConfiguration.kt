@@ -6,12 +6,10 @@ import com.intellij.openapi.util.io.FileUtilRt
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VfsUtil
 import com.intellij.openapi.vfs.VirtualFile
-import com.intellij.util.PatternUtil
 import com.intellij.util.SmartList
 import com.intellij.util.concurrency.SynchronizedClearableLazy
 import com.intellij.util.xmlb.annotations.Tag
 import org.cirjson.plugin.idea.CirJsonBundle
-import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
 import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaVersion
 import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
 import java.io.File
@@ -50,6 +48,7 @@ class UserDefinedCirJsonSchemaConfiguration(var name: String?, var schemaVersion
 
     private fun recalculatePatterns(): List<BiPredicate<Project, VirtualFile>> {
         val result = SmartList<BiPredicate<Project, VirtualFile>>()
+        val masks = SmartList<Pair<String, Int>>()
 
         for (patternText in myPatterns!!) {
             when (patternText.mappingKind) {
@@ -61,19 +60,7 @@ class UserDefinedCirJsonSchemaConfiguration(var name: String?, var schemaVersion
                 }
 
                 CirJsonMappingKind.PATTERN -> {
-                    val pathText = FileUtil.toSystemIndependentName(patternText.path)
-                    val pattern = if (pathText.isEmpty()) {
-                        PatternUtil.NOTHING
-                    } else if (pathText.indexOf('/') >= 0) {
-                        PatternUtil.compileSafe("*/${PatternUtil.convertToRegex(pathText)}", PatternUtil.NOTHING)
-                    } else {
-                        PatternUtil.fromMask(pathText)
-                    }
-
-                    result.add(BiPredicate { _, file ->
-                        val s = if (pathText.indexOf('/') >= 0) file.path else file.name
-                        CirJsonSchemaObject.matchPattern(pattern, s)
-                    })
+                    masks.add(patternText.path to 0)
                 }
 
                 CirJsonMappingKind.DIRECTORY -> {
@@ -91,6 +78,11 @@ class UserDefinedCirJsonSchemaConfiguration(var name: String?, var schemaVersion
             }
         }
 
+        if (masks.isNotEmpty()) {
+            val matcher = CirJsonSchemaPatternMatcher(masks)
+            result.add(BiPredicate { _, file -> matcher.matches(file) })
+        }
+
         return result
     }
 
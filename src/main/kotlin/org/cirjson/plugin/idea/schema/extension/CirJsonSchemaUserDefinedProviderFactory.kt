@@ -32,12 +32,17 @@ class CirJsonSchemaUserDefinedProviderFactory : CirJsonSchemaProviderFactory, Du
             File(project.basePath, relPath).absolutePath
         }
         val myPatterns = schema.calculatedPatterns
-        return MyProvider(project, schemaVersion, name, myFile, myPatterns)
+        return MyProvider(project, schemaVersion, name, myFile, myPatterns, schema.patterns.orEmpty().toList())
     }
 
+    /**
+     * @param mappings the mappings [myPatterns] were computed from, used to index the provider by the files it may
+     * apply to
+     */
     internal class MyProvider(private val myProject: Project, override val schemaVersion: CirJsonSchemaVersion,
             override val name: String, private val myFile: String,
-            private val myPatterns: List<BiPredicate<Project, VirtualFile>>) : CirJsonSchemaFileProvider,
+            private val myPatterns: List<BiPredicate<Project, VirtualFile>>,
+            val mappings: List<UserDefinedCirJsonSchemaConfiguration.Item>) : CirJsonSchemaFileProvider,
             CirJsonSchemaImportedProviderMarker {
 
         private var myVirtualFile: VirtualFile? = null
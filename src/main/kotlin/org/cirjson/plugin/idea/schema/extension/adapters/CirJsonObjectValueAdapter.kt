@@ -4,6 +4,13 @@ interface CirJsonObjectValueAdapter : CirJsonValueAdapter {
 
     val propertyList: List<CirJsonPropertyAdapter>
 
+    /**
+     * Returns the first property with the given name, if any.
+     */
+    fun findProperty(name: String): CirJsonPropertyAdapter? {
+        return propertyList.firstOrNull { it.name == name }
+    }
+
     override val isNull: Boolean
         get() = false
 
@@ -23,6 +23,7 @@ import org.cirjson.plugin.idea.schema.CirJsonSchemaCatalogEntry
 import org.cirjson.plugin.idea.schema.CirJsonSchemaService
 import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
 import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
+import org.cirjson.plugin.idea.schema.remote.CirJsonSchemaCatalogMatcher
 
 object CirJsonCachedValues {
 
@@ -45,6 +46,9 @@ object CirJsonCachedValues {
     private val SCHEMA_CATALOG_CACHE_KEY =
             Key.create<CachedValue<List<CirJsonSchemaCatalogEntry>?>>("CirJsonSchemaCatalogCache")
 
+    private val SCHEMA_CATALOG_MATCHER_CACHE_KEY =
+            Key.create<CachedValue<CirJsonSchemaCatalogMatcher?>>("CirJsonSchemaCatalogMatcherCache")
+
     private val OBJECT_FOR_FILE_KEY = Key.create<CachedValue<CirJsonSchemaObject?>>("CirJsonCachedValues.OBJ_KEY")
 
     fun getSchemaObject(schemaFile: VirtualFile, project: Project): CirJsonSchemaObject? {
@@ -54,6 +58,14 @@ object CirJsonCachedValues {
         }, CIR_JSON_OBJECT_CACHE_KEY)
     }
 
+    /**
+     * Returns whether the schema object of the [schemaFile] has been read since the file last changed.
+     */
+    fun hasSchemaObject(schemaFile: VirtualFile, project: Project): Boolean {
+        val psiFile = resolveFile(schemaFile, project) ?: return false
+        return psiFile.getUserData(CIR_JSON_OBJECT_CACHE_KEY)?.hasUpToDateValue() == true
+    }
+
     fun getSchemaUrlFromSchemaProperty(file: VirtualFile, project: Project): String? {
         val value = CirJsonSchemaFileValuesIndex.getCachedValue(project, file, URL_CACHE_KEY)
 
@@ -79,7 +91,8 @@ object CirJsonCachedValues {
         }
 
         if (psiFile is CirJsonFile) {
-            val url = CirJsonSchemaFileValuesIndex.readTopLevelProps(psiFile.fileType, psiFile.text)[URL_CACHE_KEY]
+            val url = CirJsonSchemaFileValuesIndex.readTopLevelProps(psiFile.fileType,
+                    psiFile.viewProvider.contents)[URL_CACHE_KEY]
             return if (url == null || url == CirJsonSchemaFileValuesIndex.NULL) null else url
         }
 
@@ -169,7 +182,7 @@ object CirJsonCachedValues {
             return null
         }
 
-        val props = CirJsonSchemaFileValuesIndex.readTopLevelProps(psiFile.fileType, psiFile.text)
+        val props = CirJsonSchemaFileValuesIndex.readTopLevelProps(psiFile.fileType, psiFile.viewProvider.contents)
         val id = props[ID_CACHE_KEY]
 
         if (id != null && id != CirJsonSchemaFileValuesIndex.NULL) {
@@ -189,6 +202,19 @@ object CirJsonCachedValues {
         return computeForFile(catalog, project, CirJsonCachedValues::computeSchemaCatalog, SCHEMA_CATALOG_CACHE_KEY)
     }
 
+    /**
+     * Returns the matcher of the file masks of the catalog, built once per revision of the catalog file.
+     */
+    fun getSchemaCatalogMatcher(catalog: VirtualFile, project: Project): CirJsonSchemaCatalogMatcher? {
+        if (!catalog.isValid) {
+            return null
+        }
+
+        return computeForFile(catalog, project, {
+            getSchemaCatalog(catalog, project)?.let { entries -> CirJsonSchemaCatalogMatcher(entries) }
+        }, SCHEMA_CATALOG_MATCHER_CACHE_KEY)
+    }
+
     private fun computeSchemaCatalog(catalog: PsiFile): List<CirJsonSchemaCatalogEntry>? {
         if (!catalog.isValid) {
             return null
@@ -0,0 +1,235 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.lexer.Lexer
+import com.intellij.openapi.fileTypes.FileType
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiManager
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.util.indexing.*
+import com.intellij.util.indexing.hints.FileTypeInputFilterPredicate
+import com.intellij.util.indexing.hints.FileTypeSubstitutionStrategy
+import com.intellij.util.io.DataExternalizer
+import com.intellij.util.io.DataInputOutputUtil
+import com.intellij.util.io.EnumeratorStringDescriptor
+import com.intellij.util.io.KeyDescriptor
+import org.cirjson.plugin.idea.CirJsonElementTypes
+import org.cirjson.plugin.idea.CirJsonFileType
+import org.cirjson.plugin.idea.CirJsonLexer
+import org.cirjson.plugin.idea.psi.CirJsonPsiUtil
+import org.cirjson.plugin.idea.psi.CirJsonStringLiteral
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaFileValuesIndex.Companion.skipWhitespacesAndGetTokenType
+import java.io.DataInput
+import java.io.DataOutput
+
+/**
+ * Maps every non-empty `__cirJsonId__` value of a file to the offsets of its occurrences and the kind of container
+ * (object or array) that declares it. The index is built from the lexer only, so no AST is loaded while indexing.
+ */
+class CirJsonIdIndex : FileBasedIndexExtension<String, List<CirJsonIdIndexEntry>>() {
+
+    private val myIndexer = DataIndexer<String, List<CirJsonIdIndexEntry>, FileContent> {
+        return@DataIndexer readIds(it.fileType, it.contentAsText)
+    }
+
+    override fun getName(): ID<String, List<CirJsonIdIndexEntry>> {
+        return INDEX_ID
+    }
+
+    override fun getIndexer(): DataIndexer<String, List<CirJsonIdIndexEntry>, FileContent> {
+        return myIndexer
+    }
+
+    override fun getKeyDescriptor(): KeyDescriptor<String> {
+        return EnumeratorStringDescriptor.INSTANCE
+    }
+
+    override fun getValueExternalizer(): DataExternalizer<List<CirJsonIdIndexEntry>> {
+        return EntriesExternalizer
+    }
+
+    override fun getVersion(): Int = VERSION
+
+    @Suppress("UnstableApiUsage")
+    override fun getInputFilter(): FileBasedIndex.InputFilter {
+        return FileTypeInputFilterPredicate(FileTypeSubstitutionStrategy.BEFORE_SUBSTITUTION) { it is CirJsonFileType }
+    }
+
+    override fun dependsOnFileContent(): Boolean = true
+
+    private object EntriesExternalizer : DataExternalizer<List<CirJsonIdIndexEntry>> {
+
+        private val KINDS = CirJsonIdIndexEntry.Kind.values()
+
+        override fun save(out: DataOutput, value: List<CirJsonIdIndexEntry>) {
+            DataInputOutputUtil.writeINT(out, value.size)
+
+            for (entry in value) {
+                DataInputOutputUtil.writeINT(out, entry.offset)
+                out.writeByte(entry.kind.ordinal)
+            }
+        }
+
+        override fun read(input: DataInput): List<CirJsonIdIndexEntry> {
+            val size = DataInputOutputUtil.readINT(input)
+            val result = ArrayList<CirJsonIdIndexEntry>(size)
+
+            for (i in 0..<size) {
+                val offset = DataInputOutputUtil.readINT(input)
+                result.add(CirJsonIdIndexEntry(offset, KINDS[input.readByte().toInt()]))
+            }
+
+            return result
+        }
+
+    }
+
+    @Suppress("CompanionObjectInExtension")
+    companion object {
+
+        val INDEX_ID = ID.create<String, List<CirJsonIdIndexEntry>>("cirJson.file.ids")
+
+        private const val VERSION = 1
+
+        /**
+         * Returns every occurrence of the ID in the scope, grouped by file. Returns an empty map while indexes are
+         * not ready.
+         */
+        fun getOccurrences(project: Project, id: String, scope: GlobalSearchScope = GlobalSearchScope.allScope(
+                project)): Map<VirtualFile, List<CirJsonIdIndexEntry>> {
+            if (project.isDisposed || DumbService.isDumb(project)) {
+                return emptyMap()
+            }
+
+            val result = HashMap<VirtualFile, List<CirJsonIdIndexEntry>>()
+            FileBasedIndex.getInstance().processValues(INDEX_ID, id, null, { file, value ->
+                result[file] = value
+                true
+            }, scope)
+            return result
+        }
+
+        fun getContainingFiles(project: Project, id: String,
+                scope: GlobalSearchScope = GlobalSearchScope.allScope(project)): Collection<VirtualFile> {
+            if (project.isDisposed || DumbService.isDumb(project)) {
+                return emptyList()
+            }
+
+            return FileBasedIndex.getInstance().getContainingFiles(INDEX_ID, id, scope)
+        }
+
+        fun getAllIds(project: Project): Collection<String> {
+            if (project.isDisposed || DumbService.isDumb(project)) {
+                return emptyList()
+            }
+
+            return FileBasedIndex.getInstance().getAllKeys(INDEX_ID, project)
+        }
+
+        fun getIdsInFile(project: Project, file: VirtualFile): Map<String, List<CirJsonIdIndexEntry>> {
+            if (project.isDisposed || !file.isValid || DumbService.isDumb(project)) {
+                return emptyMap()
+            }
+
+            return FileBasedIndex.getInstance().getFileData(INDEX_ID, file, project)
+        }
+
+        /**
+         * Checks whether the ID is declared by both an object and an array somewhere in the scope.
+         */
+        fun hasDifferentKinds(project: Project, id: String,
+                scope: GlobalSearchScope = GlobalSearchScope.allScope(project)): Boolean {
+            var firstKind: CirJsonIdIndexEntry.Kind? = null
+
+            for (entries in getOccurrences(project, id, scope).values) {
+                for (entry in entries) {
+                    if (firstKind == null) {
+                        firstKind = entry.kind
+                    } else if (firstKind != entry.kind) {
+                        return true
+                    }
+                }
+            }
+
+            return false
+        }
+
+        /**
+         * Resolves the indexed occurrences of the ID to their string literals, e.g. for navigation or find usages.
+         */
+        fun findIdLiterals(project: Project, id: String,
+                scope: GlobalSearchScope = GlobalSearchScope.allScope(project)): List<CirJsonStringLiteral> {
+            val psiManager = PsiManager.getInstance(project)
+            val result = arrayListOf<CirJsonStringLiteral>()
+
+            for ((file, entries) in getOccurrences(project, id, scope)) {
+                val psiFile = psiManager.findFile(file) ?: continue
+
+                for (entry in entries) {
+                    val leaf = psiFile.findElementAt(entry.offset) ?: continue
+                    result.add(PsiTreeUtil.getParentOfType(leaf, CirJsonStringLiteral::class.java, false) ?: continue)
+                }
+            }
+
+            return result
+        }
+
+        fun readIds(fileType: FileType, content: CharSequence): Map<String, List<CirJsonIdIndexEntry>> {
+            if (fileType !is CirJsonFileType) {
+                return HashMap()
+            }
+
+            val lexer = CirJsonLexer.createScanningLexer()
+            val map = HashMap<String, MutableList<CirJsonIdIndexEntry>>()
+            lexer.start(content)
+
+            while (lexer.tokenType != null) {
+                val token = lexer.tokenType
+
+                if (token == CirJsonElementTypes.L_CURLY) {
+                    lexer.advance()
+
+                    if (skipWhitespacesAndGetTokenType(lexer) == CirJsonElementTypes.ID_KEY) {
+                        lexer.advance()
+
+                        if (skipWhitespacesAndGetTokenType(lexer) == CirJsonElementTypes.COLON) {
+                            lexer.advance()
+                            captureIdIfString(lexer, map, CirJsonIdIndexEntry.Kind.OBJECT)
+                        }
+                    }
+
+                    // the current token may open another container, so it must not be skipped
+                    continue
+                } else if (token == CirJsonElementTypes.L_BRACKET) {
+                    lexer.advance()
+                    captureIdIfString(lexer, map, CirJsonIdIndexEntry.Kind.ARRAY)
+                    continue
+                }
+
+                lexer.advance()
+            }
+
+            return map
+        }
+
+        private fun captureIdIfString(lexer: Lexer, destMap: HashMap<String, MutableList<CirJsonIdIndexEntry>>,
+                kind: CirJsonIdIndexEntry.Kind) {
+            val token = skipWhitespacesAndGetTokenType(lexer)
+
+            if (token != CirJsonElementTypes.DOUBLE_QUOTED_STRING
+                    && token != CirJsonElementTypes.SINGLE_QUOTED_STRING) {
+                return
+            }
+
+            val id = CirJsonPsiUtil.unquoteAndUnescape(lexer.tokenSequence)
+
+            if (id.isNotEmpty()) {
+                destMap.getOrPut(id) { arrayListOf() }.add(CirJsonIdIndexEntry(lexer.tokenStart, kind))
+            }
+        }
+
+    }
+
+}
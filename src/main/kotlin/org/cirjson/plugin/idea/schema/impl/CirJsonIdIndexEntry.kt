@@ -0,0 +1,19 @@
+package org.cirjson.plugin.idea.schema.impl
+
+/**
+ * A single `__cirJsonId__` occurrence stored by [CirJsonIdIndex].
+ *
+ * @property offset start offset of the string literal holding the ID
+ * @property kind kind of the container the ID belongs to
+ */
+data class CirJsonIdIndexEntry(val offset: Int, val kind: Kind) {
+
+    enum class Kind {
+
+        OBJECT,
+
+        ARRAY
+
+    }
+
+}
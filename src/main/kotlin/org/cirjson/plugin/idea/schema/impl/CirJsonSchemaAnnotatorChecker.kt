@@ -13,19 +13,37 @@ import org.cirjson.plugin.idea.extentions.intellij.set
 import org.cirjson.plugin.idea.pointer.CirJsonPointerPosition
 import org.cirjson.plugin.idea.schema.extension.CirJsonErrorPriority
 import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
-import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaValidation
 import org.cirjson.plugin.idea.schema.extension.CirJsonValidationHost
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
-import org.cirjson.plugin.idea.schema.impl.validations.*
+import org.cirjson.plugin.idea.schema.impl.validations.EnumValidation
+import java.util.*
 import java.util.stream.Collectors
 
+/**
+ * Checks values against schemas and collects the errors found.
+ *
+ * The alternatives of `oneOf` and `anyOf` are checked within the budget of the [CirJsonSchemaValidationSession]. When
+ * it runs out, the alternatives left are not checked and no errors are reported for the value. The value is then
+ * treated as matching the last alternative of `oneOf` it matched so far, or else the first alternative, and the first
+ * alternative of `anyOf`, so that the same file is always validated the same way. The session records the value, and
+ * the inspection reports it.
+ */
 class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
-        private val myOptions: CirJsonComplianceCheckerOptions) : CirJsonValidationHost {
+        private val myOptions: CirJsonComplianceCheckerOptions,
+        private val mySession: CirJsonSchemaValidationSession = CirJsonSchemaValidationSession()) :
+        CirJsonValidationHost {
 
     val errors = HashMap<PsiElement, CirJsonValidationError>()
 
     var hadTypeError = false
 
+    /**
+     * The results of nested values merged into [errors], in the order they were merged, see [toValidationResult].
+     */
+    private val myNestedResults = SmartList<CirJsonSchemaValidationCache.Result>()
+
+    private val myNestedErrors = Collections.newSetFromMap(IdentityHashMap<CirJsonValidationError, Boolean>())
+
     override fun error(error: String, holder: PsiElement, priority: CirJsonErrorPriority) {
         error(error, holder, CirJsonValidationError.FixableIssueKind.None, null, priority)
     }
@@ -74,24 +92,72 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
     }
 
     override fun resolve(schemaObject: CirJsonSchemaObject): MatchResult {
-        return CirJsonSchemaResolver(myProject, schemaObject).detailedResolve()
+        return CirJsonSchemaCacheManager.getInstance(myProject).getValidationPlan(schemaObject).matchResult
     }
 
     override fun checkByMatchResult(adapter: CirJsonValueAdapter, result: MatchResult,
             options: CirJsonComplianceCheckerOptions): CirJsonValidationHost? {
-        return checkByMatchResult(myProject, adapter, result, options)
+        return checkByMatchResult(myProject, adapter, result, options, mySession)
     }
 
+    /**
+     * Checks the value against the schema, reusing the result of the previous check of the value if it hasn't changed
+     * since, so that editing a large file only revalidates the values around the edit.
+     */
     override fun checkObjectBySchemaRecordErrors(schema: CirJsonSchemaObject, obj: CirJsonValueAdapter) {
-        checkObjectBySchemaRecordErrors(schema, obj, CirJsonPointerPosition())
+        val cache = CirJsonSchemaValidationCache.getInstance(myProject)
+        val cached = cache.getResult(obj, schema, myOptions)
+
+        if (cached != null) {
+            hadTypeError = cached.hadTypeError
+            addNestedResult(cached)
+            return
+        }
+
+        val budgetExceeded = mySession.isBudgetExceeded
+        val checker = checkByMatchResult(myProject, obj, resolve(schema), myOptions, mySession) ?: return
+        val result = checker.toValidationResult()
+        hadTypeError = checker.hadTypeError
+        addNestedResult(result)
+
+        // a check cut short by the budget may miss errors, so it must not be reused
+        if (!budgetExceeded && !mySession.isBudgetExceeded) {
+            cache.putResult(obj, schema, myOptions, result)
+        }
+    }
+
+    private fun addNestedResult(result: CirJsonSchemaValidationCache.Result) {
+        val nestedErrors = result.errors
+        myNestedResults.add(result)
+        myNestedErrors.addAll(nestedErrors.values)
+        errors.putAll(nestedErrors)
+    }
+
+    /**
+     * Returns the result of this check for [CirJsonSchemaValidationCache]. It keeps the errors merged from nested
+     * results as references to those results, and only the errors found by this check itself.
+     */
+    private fun toValidationResult(): CirJsonSchemaValidationCache.Result {
+        val ownErrors = if (myNestedErrors.isEmpty()) {
+            HashMap(errors)
+        } else {
+            errors.filterValuesTo(HashMap()) { it !in myNestedErrors }
+        }
+
+        return CirJsonSchemaValidationCache.Result(ownErrors, ArrayList(myNestedResults), hadTypeError)
     }
 
     fun checkObjectBySchemaRecordErrors(schema: CirJsonSchemaObject, obj: CirJsonValueAdapter,
             position: CirJsonPointerPosition) {
-        checkByMatchResult(myProject, obj, CirJsonSchemaResolver(myProject, schema, position).detailedResolve(),
-                myOptions)?.let {
+        val result = if (position.empty) {
+            resolve(schema)
+        } else {
+            CirJsonSchemaResolver(myProject, schema, position).detailedResolve()
+        }
+
+        checkByMatchResult(myProject, obj, result, myOptions, mySession)?.let {
             hadTypeError = it.hadTypeError
-            errors.putAll(it.errors)
+            addErrorsFrom(it)
         }
     }
 
@@ -99,13 +165,17 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
         get() = errors.isNotEmpty() && !hadTypeError
 
     override fun addErrorsFrom(otherHost: CirJsonValidationHost) {
-        errors.putAll((otherHost as CirJsonSchemaAnnotatorChecker).errors)
+        val other = otherHost as CirJsonSchemaAnnotatorChecker
+        myNestedResults.addAll(other.myNestedResults)
+        myNestedErrors.addAll(other.myNestedErrors)
+        errors.putAll(other.errors)
     }
 
     fun checkByScheme(value: CirJsonValueAdapter, schema: CirJsonSchemaObject) {
         val type = CirJsonSchemaType.getType(value)
 
-        for (validation in getAllValidations(schema, type, value)) {
+        for (validation in CirJsonSchemaCacheManager.getInstance(myProject).getValidationPlan(schema)
+                .getValidations(type, value)) {
             validation.validate(value, schema, type, this, myOptions)
         }
     }
@@ -119,14 +189,14 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
         val candidateErroneousCheckers = arrayListOf<CirJsonSchemaAnnotatorChecker>()
         val candidateErroneousSchemas = arrayListOf<CirJsonSchemaObject>()
         val correct = SmartList<CirJsonSchemaObject>()
+        val alternatives = selectByDiscriminator(value, oneOf, myOptions)
 
-        for (obj in oneOf) {
+        for (obj in alternatives) {
             if (obj.shouldValidateAgainstJSType) {
                 continue
             }
 
-            val checker = CirJsonSchemaAnnotatorChecker(myProject, myOptions)
-            checker.checkByScheme(value, obj)
+            val checker = checkBranch(value, obj) ?: return correct.lastOrNull() ?: alternatives.first()
 
             if (checker.isCorrect) {
                 candidateErroneousCheckers.clear()
@@ -161,9 +231,10 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
     private fun processAnyOf(value: CirJsonValueAdapter, anyOf: List<CirJsonSchemaObject>): CirJsonSchemaObject? {
         val candidateErroneousCheckers = arrayListOf<CirJsonSchemaAnnotatorChecker>()
         val candidateErroneousSchemas = arrayListOf<CirJsonSchemaObject>()
+        val alternatives = selectByDiscriminator(value, anyOf, myOptions)
 
-        for (obj in anyOf) {
-            val checker = CirJsonSchemaAnnotatorChecker(myProject, myOptions).apply { checkByScheme(value, obj) }
+        for (obj in alternatives) {
+            val checker = checkBranch(value, obj) ?: return alternatives.first()
 
             if (checker.isCorrect) {
                 return obj
@@ -176,6 +247,17 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
         return showErrorsAndGetLeastErroneous(candidateErroneousCheckers, candidateErroneousSchemas, false)
     }
 
+    /**
+     * Checks the value against one of the alternatives of `oneOf` or `anyOf`, reusing the result if the session has
+     * already checked it. Returns `null` once the session's budget is exhausted, in which case no errors should be
+     * reported, since the alternatives that were not checked might have matched.
+     */
+    private fun checkBranch(value: CirJsonValueAdapter, schema: CirJsonSchemaObject): CirJsonSchemaAnnotatorChecker? {
+        return mySession.checkBranch(value.delegate, schema, myOptions) {
+            CirJsonSchemaAnnotatorChecker(myProject, myOptions, mySession).apply { checkByScheme(value, schema) }
+        }
+    }
+
     /**
      * Filters schema validation results to get the result with the "minimal" amount of errors.
      * This is needed in case of oneOf or anyOf conditions, when there exist no match.
@@ -267,24 +349,27 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
                         CirJsonSchemaType._string, CirJsonSchemaType._null)
 
         fun checkByMatchResult(project: Project, elementToCheck: CirJsonValueAdapter, result: MatchResult,
-                options: CirJsonComplianceCheckerOptions): CirJsonSchemaAnnotatorChecker? {
+                options: CirJsonComplianceCheckerOptions,
+                session: CirJsonSchemaValidationSession = CirJsonSchemaValidationSession()):
+                CirJsonSchemaAnnotatorChecker? {
             val checkers = arrayListOf<CirJsonSchemaAnnotatorChecker>()
 
             if (result.myExcludingSchemas.isEmpty() && result.mySchemas.size == 1) {
-                val checker = CirJsonSchemaAnnotatorChecker(project, options)
+                val checker = CirJsonSchemaAnnotatorChecker(project, options, session)
                 checker.checkByScheme(elementToCheck, result.mySchemas.first())
                 checkers.add(checker)
             } else {
                 if (result.mySchemas.isNotEmpty()) {
                     checkers.add(
-                            processSchemasVariants(project, result.mySchemas, elementToCheck, false, options).second)
+                            processSchemasVariants(project, result.mySchemas, elementToCheck, false, options,
+                                    session).second)
                 }
 
                 if (result.myExcludingSchemas.isNotEmpty()) {
                     val list = result.myExcludingSchemas.map {
-                        processSchemasVariants(project, it, elementToCheck, true, options).second
+                        processSchemasVariants(project, it, elementToCheck, true, options, session).second
                     }
-                    checkers.add(mergeErrors(project, list, options, result.myExcludingSchemas))
+                    checkers.add(mergeErrors(project, list, options, result.myExcludingSchemas, session))
                 }
             }
 
@@ -300,9 +385,9 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
         }
 
         private fun processSchemasVariants(project: Project, collection: Collection<CirJsonSchemaObject>,
-                value: CirJsonValueAdapter, isOneOf: Boolean,
-                options: CirJsonComplianceCheckerOptions): Pair<CirJsonSchemaObject?, CirJsonSchemaAnnotatorChecker> {
-            val checker = CirJsonSchemaAnnotatorChecker(project, options)
+                value: CirJsonValueAdapter, isOneOf: Boolean, options: CirJsonComplianceCheckerOptions,
+                session: CirJsonSchemaValidationSession): Pair<CirJsonSchemaObject?, CirJsonSchemaAnnotatorChecker> {
+            val checker = CirJsonSchemaAnnotatorChecker(project, options, session)
             val type = CirJsonSchemaType.getType(value)
             var selected: CirJsonSchemaObject? = null
 
@@ -402,8 +487,9 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
 
         private fun mergeErrors(project: Project, list: List<CirJsonSchemaAnnotatorChecker>,
                 options: CirJsonComplianceCheckerOptions,
-                excludingSchemas: List<Collection<CirJsonSchemaObject>>): CirJsonSchemaAnnotatorChecker {
-            val checker = CirJsonSchemaAnnotatorChecker(project, options)
+                excludingSchemas: List<Collection<CirJsonSchemaObject>>,
+                session: CirJsonSchemaValidationSession): CirJsonSchemaAnnotatorChecker {
+            val checker = CirJsonSchemaAnnotatorChecker(project, options, session)
 
             for (ch in list) {
                 for (element in ch.errors) {
@@ -435,81 +521,35 @@ class CirJsonSchemaAnnotatorChecker(private val myProject: Project,
             return checker
         }
 
-        private fun getAllValidations(schema: CirJsonSchemaObject, type: CirJsonSchemaType?,
-                value: CirJsonValueAdapter): Collection<CirJsonSchemaValidation> {
-            val validations = LinkedHashSet<CirJsonSchemaValidation>()
-            validations.add(EnumValidation.INSTANCE)
-
-            if (type != null) {
-                validations.add(TypeValidation.INSTANCE)
-
-                when (type) {
-                    CirJsonSchemaType._string_number -> {
-                        validations.add(NumericValidation.INSTANCE)
-                        validations.add(StringValidation.INSTANCE)
-                    }
-
-                    CirJsonSchemaType._number, CirJsonSchemaType._integer -> {
-                        validations.add(NumericValidation.INSTANCE)
-                    }
-
-                    CirJsonSchemaType._string -> {
-                        validations.add(StringValidation.INSTANCE)
-                    }
-
-                    CirJsonSchemaType._array -> {
-                        validations.add(ArrayValidation.INSTANCE)
-                    }
-
-                    CirJsonSchemaType._object -> {
-                        validations.add(ObjectValidation.INSTANCE)
-                    }
-
-                    else -> {}
+        /**
+         * Narrows the alternatives down using a discriminator, i.e. a property of the object that every alternative
+         * restricts with `const` or `enum`. Alternatives that do not accept the value of the discriminator would fail
+         * on it anyway, so they are not validated. Returns all the alternatives if there is no discriminator, or if
+         * none of them accepts its value, so that the errors are reported as usual.
+         */
+        private fun selectByDiscriminator(value: CirJsonValueAdapter, alternatives: List<CirJsonSchemaObject>,
+                options: CirJsonComplianceCheckerOptions): List<CirJsonSchemaObject> {
+            val obj = value.asObject ?: return alternatives
+
+            for (property in obj.propertyList) {
+                val name = property.name ?: continue
+                val propertyValue = property.values.singleOrNull() ?: continue
+                val propertySchemas = alternatives.map { it.getPropertyByName(name)?.takeIf { s -> s.enum != null } }
+
+                if (propertySchemas.any { it == null }) {
+                    continue
                 }
-            }
 
-            if (!value.shouldBeIgnored) {
-                if (schema.hasNumericChecks && value.isNumberLiteral) {
-                    validations.add(NumericValidation.INSTANCE)
+                val selected = alternatives.filterIndexed { i, _ ->
+                    EnumValidation.isEnumValue(propertyValue, propertySchemas[i]!!, options)
                 }
 
-                if (schema.hasStringChecks && value.isStringLiteral) {
-                    validations.add(StringValidation.INSTANCE)
+                if (selected.isNotEmpty() && selected.size < alternatives.size) {
+                    return selected
                 }
-
-                if (schema.hasArrayChecks && value.isArray) {
-                    validations.add(ArrayValidation.INSTANCE)
-                }
-
-                if (hasMinMaxLengthChecks(schema)) {
-                    if (value.isStringLiteral) {
-                        validations.add(StringValidation.INSTANCE)
-                    }
-
-                    if (value.isArray) {
-                        validations.add(ArrayValidation.INSTANCE)
-                    }
-                }
-
-                if (schema.hasObjectChecks && value.isObject) {
-                    validations.add(ObjectValidation.INSTANCE)
-                }
-            }
-
-            if (schema.not != null) {
-                validations.add(NotValidation.INSTANCE)
             }
 
-            if (schema.ifThenElse != null) {
-                validations.add(IfThenElseValidation.INSTANCE)
-            }
-
-            return validations
-        }
-
-        private fun hasMinMaxLengthChecks(schema: CirJsonSchemaObject): Boolean {
-            return schema.minLength != null || schema.maxLength != null
+            return alternatives
         }
 
         private fun schemesDifferWithNotCheckedProperties(list: List<CirJsonSchemaObject>): Boolean {
@@ -10,14 +10,18 @@ import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiFile
 import com.intellij.util.containers.CollectionFactory
+import org.cirjson.plugin.idea.schema.CirJsonDependencyModificationTracker
 import java.util.concurrent.CompletableFuture
 
 @Service(Service.Level.PROJECT)
-class CirJsonSchemaCacheManager : Disposable {
+class CirJsonSchemaCacheManager(private val project: Project) : Disposable {
 
     private val cache =
             CollectionFactory.createConcurrentWeakMap<VirtualFile, CachedValue<CompletableFuture<CirJsonSchemaObject?>>>()
 
+    private val validationPlans =
+            CollectionFactory.createConcurrentWeakIdentityMap<CirJsonSchemaObject, CirJsonSchemaValidationPlan>()
+
     /**
      *  Computes [CirJsonSchemaObject] preventing multiple concurrent computations of the same schema.
      */
@@ -59,14 +63,35 @@ class CirJsonSchemaCacheManager : Disposable {
     private fun completeSync(schemaVirtualFile: VirtualFile, schemaPsiFile: PsiFile,
             future: CompletableFuture<CirJsonSchemaObject?>) {
         try {
-            future.complete(CirJsonSchemaReader(schemaVirtualFile).read(schemaPsiFile))
+            future.complete(CirJsonSchemaGraphCache.getOrRead(schemaVirtualFile, schemaPsiFile.viewProvider.contents) {
+                CirJsonSchemaReader(schemaVirtualFile).read(schemaPsiFile)
+            })
         } catch (e: Exception) {
             future.completeExceptionally(e)
         }
     }
 
+    /**
+     * Returns the [CirJsonSchemaValidationPlan] of the schema, compiling it on first use. Plans live as long as their
+     * schema objects, which are recreated whenever the schema file changes, and are dropped when the dependencies
+     * between schemas change.
+     */
+    fun getValidationPlan(schema: CirJsonSchemaObject): CirJsonSchemaValidationPlan {
+        val modificationCount = CirJsonDependencyModificationTracker.forProject(project).modificationCount
+        val plan = validationPlans[schema]
+
+        if (plan != null && plan.modificationCount == modificationCount) {
+            return plan
+        }
+
+        val newPlan = CirJsonSchemaValidationPlan(project, schema, modificationCount)
+        validationPlans[schema] = newPlan
+        return newPlan
+    }
+
     override fun dispose() {
         cache.clear()
+        validationPlans.clear()
     }
 
     private data class CachedValue<T>(val value: T, val virtualFileModStamp: Long, val psiFileModStamp: Long)
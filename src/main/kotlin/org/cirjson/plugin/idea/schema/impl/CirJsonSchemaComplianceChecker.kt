@@ -1,13 +1,16 @@
 package org.cirjson.plugin.idea.schema.impl
 
 import com.intellij.codeInspection.LocalInspectionToolSession
+import com.intellij.codeInspection.ProblemHighlightType
 import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.Ref
 import com.intellij.openapi.util.TextRange
 import com.intellij.psi.PsiElement
 import com.intellij.psi.util.PsiTreeUtil
 import com.intellij.util.SmartList
+import org.cirjson.plugin.idea.CirJsonBundle
 import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonPropertyAdapter
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
@@ -37,7 +40,10 @@ class CirJsonSchemaComplianceChecker(private val myRootSchema: CirJsonSchemaObje
             val result = CirJsonSchemaResolver(project, myRootSchema, position).detailedResolve()
 
             for (value in firstProp.values) {
-                createWarnings(CirJsonSchemaAnnotatorChecker.checkByMatchResult(project, value, result, myOptions))
+                val session = getValidationSession()
+                createWarnings(CirJsonSchemaAnnotatorChecker.checkByMatchResult(project, value, result, myOptions,
+                        session))
+                reportTruncation(session)
             }
         }
 
@@ -140,14 +146,53 @@ class CirJsonSchemaComplianceChecker(private val myRootSchema: CirJsonSchemaObje
         } ?: return
 
         val project = element.project
-        val result = CirJsonSchemaResolver(project, myRootSchema).detailedResolve()
-        createWarnings(CirJsonSchemaAnnotatorChecker.checkByMatchResult(project, rootToCheck, result, myOptions))
+        val result = CirJsonSchemaCacheManager.getInstance(project).getValidationPlan(myRootSchema).matchResult
+        val session = getValidationSession()
+        createWarnings(CirJsonSchemaAnnotatorChecker.checkByMatchResult(project, rootToCheck, result, myOptions,
+                session))
+        reportTruncation(session)
+    }
+
+    /**
+     * Reports the value whose alternatives of `oneOf` and `anyOf` were left unchecked when the budget of the [session]
+     * ran out, as the value and those around it may have errors that are not reported.
+     */
+    private fun reportTruncation(session: CirJsonSchemaValidationSession) {
+        val element = session.truncatedElement ?: return
+
+        if (!element.isValid || checkIfAlreadyProcessed(element)) {
+            return
+        }
+
+        LOG.debug("Validation budget of ${session.budget} alternatives exhausted at offset ${element.textOffset}")
+        myHolder.registerProblem(element,
+                CirJsonBundle.message("schema.validation.budget.exceeded", session.budget,
+                        CirJsonSchemaValidationSession.BRANCH_BUDGET_REGISTRY_KEY), ProblemHighlightType.WEAK_WARNING)
+    }
+
+    /**
+     * Returns a validation session remembering the results of all the checks of this inspection session, with a new
+     * budget for each check.
+     */
+    private fun getValidationSession(): CirJsonSchemaValidationSession {
+        var session = mySession.getUserData(VALIDATION_SESSION)
+
+        if (session == null) {
+            session = CirJsonSchemaValidationSession()
+            mySession.putUserData(VALIDATION_SESSION, session)
+        }
+
+        return session.withNewBudget()
     }
 
     companion object {
 
+        private val LOG = Logger.getInstance(CirJsonSchemaComplianceChecker::class.java)
+
         private val ANNOTATED_PROPERTIES = Key.create<MutableSet<PsiElement>>("CirJsonSchema.Properties.Annotated")
 
+        private val VALIDATION_SESSION = Key.create<CirJsonSchemaValidationSession>("CirJsonSchema.Validation.Session")
+
         private fun findTopLevelElement(walker: CirJsonLikePsiWalker, element: PsiElement): CirJsonValueAdapter? {
             val ref = Ref<PsiElement>()
             PsiTreeUtil.findFirstParent(element) {
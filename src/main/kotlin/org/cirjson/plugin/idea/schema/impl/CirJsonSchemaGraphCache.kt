@@ -0,0 +1,569 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.ide.plugins.PluginManager
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.concurrency.AppExecutorUtil
+import com.intellij.util.io.DigestUtil
+import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
+import org.jetbrains.annotations.TestOnly
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.util.*
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Disk cache of the [CirJsonSchemaObject] graphs read by [CirJsonSchemaReader], so that large schemas are not parsed
+ * again after a restart. Each schema file has its own cache file in the system directory, named after the URL of the
+ * schema, and holding the hash of the text it was read from. A cache file is used only if the hash matches the current
+ * text of the schema and the file was written by the same reader, and is rewritten in the background otherwise. Cache
+ * files that haven't been used for a while are deleted, as are the least recently used ones past a total size.
+ *
+ * Schemas of temporary files, small schemas and schemas with values that can't be written (like `example`, which keeps
+ * PSI) are not cached.
+ */
+object CirJsonSchemaGraphCache {
+
+    const val DISK_CACHE_REGISTRY_KEY = "cirjson.schema.disk.cache"
+
+    private const val MAGIC = 0x434A5347
+
+    private const val FORMAT_VERSION = 2
+
+    private const val MIN_CACHED_LENGTH = 16 * 1024
+
+    private val MAX_UNUSED_AGE = TimeUnit.DAYS.toMillis(30)
+
+    /**
+     * A cache file used again within this time is not touched, [prune] doesn't need to know its last use more closely.
+     */
+    private val TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1)
+
+    private const val MAX_TOTAL_SIZE = 64L * 1024 * 1024
+
+    private val LOG = Logger.getInstance(CirJsonSchemaGraphCache::class.java)
+
+    private val WRITER = AppExecutorUtil.createBoundedApplicationPoolExecutor("CirJSON Schema Cache Writer", 1)
+
+    private val PRUNE_SCHEDULED = AtomicBoolean()
+
+    /**
+     * Identifies the code that wrote a cache file: the version of the plugin, and the hash of the classes that read
+     * schemas and write their graphs, as snapshot builds keep the same version.
+     */
+    private val READER_VERSION by lazy { computeReaderVersion() }
+
+    private val cacheDir: Path
+        get() = PathManager.getSystemDir().resolve("cirjson-schemas")
+
+    /**
+     * Returns the schema of the [file] from the disk cache if it was read from the same [text], or [read]s it and
+     * schedules it to be written to the cache otherwise.
+     */
+    fun getOrRead(file: VirtualFile, text: CharSequence, read: () -> CirJsonSchemaObject?): CirJsonSchemaObject? {
+        val url = file.url
+
+        if (text.length < MIN_CACHED_LENGTH || CirJsonFileResolver.isTempOrMockUrl(url)
+                || !Registry.`is`(DISK_CACHE_REGISTRY_KEY, true)) {
+            return read()
+        }
+
+        if (PRUNE_SCHEDULED.compareAndSet(false, true)) {
+            WRITER.execute { prune(cacheDir, System.currentTimeMillis() - MAX_UNUSED_AGE, MAX_TOTAL_SIZE) }
+        }
+
+        val hash = DigestUtil.sha256().digest(text.toString().toByteArray(Charsets.UTF_8))
+        val path = getCachePath(url)
+        val cached = load(path, file, hash)
+
+        if (cached != null) {
+            touch(path)
+            return cached
+        }
+
+        val schema = read() ?: return null
+        WRITER.execute { save(path, url, hash, schema) }
+        return schema
+    }
+
+    internal fun getCachePath(url: String): Path {
+        val name = StringUtil.toHexString(DigestUtil.sha256().digest(url.toByteArray(Charsets.UTF_8))).take(32)
+        return cacheDir.resolve("$name.bin")
+    }
+
+    private fun load(path: Path, file: VirtualFile, hash: ByteArray): CirJsonSchemaObject? {
+        if (!Files.isRegularFile(path)) {
+            return null
+        }
+
+        try {
+            // read on the heap rather than mapped, as a mapped file can't be replaced on Windows until it's unmapped
+            val buffer = ByteBuffer.wrap(Files.readAllBytes(path))
+
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null
+            }
+
+            val input = GraphInput(buffer, file)
+
+            if (input.readString() != READER_VERSION || input.readString() != file.url
+                    || !input.readBytes().contentEquals(hash)) {
+                return null
+            }
+
+            return input.readGraph()
+        } catch (e: ProcessCanceledException) {
+            throw e
+        } catch (e: Exception) {
+            LOG.info("Cannot load the cached schema of ${file.url}", e)
+            return null
+        }
+    }
+
+    private fun save(path: Path, url: String, hash: ByteArray, schema: CirJsonSchemaObject) {
+        try {
+            val output = GraphOutput()
+            output.writeString(READER_VERSION)
+            output.writeString(url)
+            output.writeBytes(hash)
+            output.writeGraph(schema)
+
+            Files.createDirectories(path.parent)
+            val temp = Files.createTempFile(path.parent, path.fileName.toString(), ".tmp")
+
+            try {
+                DataOutputStream(Files.newOutputStream(temp)).use {
+                    it.writeInt(MAGIC)
+                    it.writeInt(FORMAT_VERSION)
+                    output.writeTo(it)
+                }
+
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            } finally {
+                Files.deleteIfExists(temp)
+            }
+        } catch (e: UnsupportedValueException) {
+            LOG.debug("Schema $url is not cached: ${e.message}")
+        } catch (e: IOException) {
+            LOG.info("Cannot cache the schema $url", e)
+        }
+    }
+
+    /**
+     * Marks the cache file as used, so that [prune] keeps it. The file is only written if it wasn't used within
+     * [TOUCH_INTERVAL], so that schemas read again and again don't queue a write each time.
+     */
+    private fun touch(path: Path) {
+        try {
+            val now = System.currentTimeMillis()
+
+            if (Files.getLastModifiedTime(path).toMillis() > now - TOUCH_INTERVAL) {
+                return
+            }
+
+            WRITER.execute {
+                try {
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(now))
+                } catch (e: IOException) {
+                    LOG.debug(e)
+                }
+            }
+        } catch (e: IOException) {
+            LOG.debug(e)
+        }
+    }
+
+    /**
+     * Deletes the cache files of the [dir] last used before [oldest], and the least recently used ones past
+     * [maxTotalSize].
+     */
+    internal fun prune(dir: Path, oldest: Long, maxTotalSize: Long) {
+        if (!Files.isDirectory(dir)) {
+            return
+        }
+
+        try {
+            val files = Files.newDirectoryStream(dir).use { it.toList() }.filter { Files.isRegularFile(it) }
+                    .map { it to Files.getLastModifiedTime(it).toMillis() }.sortedByDescending { it.second }
+            var totalSize = 0L
+
+            for ((path, lastModified) in files) {
+                totalSize += Files.size(path)
+
+                if (lastModified < oldest || totalSize > maxTotalSize) {
+                    Files.deleteIfExists(path)
+                }
+            }
+        } catch (e: IOException) {
+            LOG.info("Cannot prune the schema cache", e)
+        }
+    }
+
+    /**
+     * Waits until the cache files scheduled to be written are written.
+     */
+    @TestOnly
+    internal fun waitForWrites() {
+        WRITER.submit {}.get()
+    }
+
+    private fun computeReaderVersion(): String {
+        val digest = DigestUtil.sha256()
+        val version = PluginManager.getPluginByClass(CirJsonSchemaGraphCache::class.java)?.version ?: ""
+        digest.update(version.toByteArray(Charsets.UTF_8))
+
+        for (aClass in listOf(CirJsonSchemaReader::class.java, CirJsonSchemaObject::class.java,
+                CirJsonSchemaGraphCache::class.java)) {
+            aClass.getResourceAsStream("${aClass.simpleName}.class")?.use { digest.update(it.readAllBytes()) }
+        }
+
+        return "$version:${StringUtil.toHexString(digest.digest())}"
+    }
+
+    private class UnsupportedValueException(message: String) : IOException(message)
+
+    /**
+     * Writes a graph of schema objects. Objects are numbered in the order they are first referenced, and their fields
+     * are written in the same order, so that [GraphInput] can create every object when it first reads a reference to
+     * it. Strings are written once, and referenced by index afterward.
+     */
+    internal class GraphOutput {
+
+        private val myBytes = ByteArrayOutputStream()
+
+        private val myOutput = DataOutputStream(myBytes)
+
+        private val myStrings = HashMap<String, Int>()
+
+        private val myObjects = IdentityHashMap<CirJsonSchemaObject, Int>()
+
+        private val myQueue = ArrayList<CirJsonSchemaObject>()
+
+        private val mySharedValues = IdentityHashMap<Any, Int>()
+
+        fun writeGraph(root: CirJsonSchemaObject) {
+            writeValue(root)
+            var i = 0
+
+            while (i < myQueue.size) {
+                myQueue[i++].writeTo(this)
+            }
+        }
+
+        fun writeTo(output: DataOutputStream) {
+            myBytes.writeTo(output)
+        }
+
+        fun writeValue(value: Any?) {
+            when (value) {
+                null -> myOutput.writeByte(NULL)
+
+                is String -> {
+                    myOutput.writeByte(STRING)
+                    writeString(value)
+                }
+
+                is Int -> {
+                    myOutput.writeByte(INT)
+                    myOutput.writeInt(value)
+                }
+
+                is Long -> {
+                    myOutput.writeByte(LONG)
+                    myOutput.writeLong(value)
+                }
+
+                is Double -> {
+                    myOutput.writeByte(DOUBLE)
+                    myOutput.writeDouble(value)
+                }
+
+                is Boolean -> myOutput.writeByte(if (value) TRUE else FALSE)
+
+                is CirJsonSchemaType -> {
+                    myOutput.writeByte(TYPE)
+                    writeVarInt(value.ordinal)
+                }
+
+                is CirJsonSchemaObject -> writeObject(value)
+
+                is EnumArrayValueWrapper -> {
+                    myOutput.writeByte(ENUM_ARRAY)
+                    writeVarInt(value.values.size)
+                    value.values.forEach { writeValue(it) }
+                }
+
+                is EnumObjectValueWrapper -> {
+                    myOutput.writeByte(ENUM_OBJECT)
+                    writeEntries(value.values)
+                }
+
+                is List<*> -> {
+                    myOutput.writeByte(LIST)
+                    writeVarInt(value.size)
+                    value.forEach { writeValue(it) }
+                }
+
+                is Set<*> -> {
+                    myOutput.writeByte(SET)
+                    writeVarInt(value.size)
+                    value.forEach { writeValue(it) }
+                }
+
+                is Map<*, *> -> {
+                    myOutput.writeByte(MAP)
+                    writeEntries(value)
+                }
+
+                else -> throw UnsupportedValueException("unsupported value of ${value.javaClass.name}")
+            }
+        }
+
+        /**
+         * Writes a value shared by many objects, like the ids map of the file, only once.
+         */
+        fun writeShared(value: Any?) {
+            val index = if (value != null) mySharedValues[value] else null
+
+            if (value == null || index != null) {
+                writeVarInt(index?.plus(1) ?: 0)
+            } else {
+                mySharedValues[value] = mySharedValues.size
+                writeVarInt(mySharedValues.size)
+                writeValue(value)
+            }
+        }
+
+        private fun writeObject(value: CirJsonSchemaObject) {
+            val id = myObjects[value]
+
+            if (id != null) {
+                myOutput.writeByte(OBJECT)
+                writeVarInt(id)
+            } else {
+                myObjects[value] = myQueue.size
+                myQueue.add(value)
+                myOutput.writeByte(NEW_OBJECT)
+                writeString(value.pointer)
+            }
+        }
+
+        private fun writeEntries(map: Map<*, *>) {
+            writeVarInt(map.size)
+
+            for ((key, value) in map) {
+                writeString(key as? String ?: throw UnsupportedValueException("unsupported key $key"))
+                writeValue(value)
+            }
+        }
+
+        fun writeString(value: String) {
+            val index = myStrings[value]
+
+            if (index != null) {
+                writeVarInt(index + 1)
+            } else {
+                myStrings[value] = myStrings.size
+                writeVarInt(0)
+                writeBytes(value.toByteArray(Charsets.UTF_8))
+            }
+        }
+
+        fun writeBytes(bytes: ByteArray) {
+            writeVarInt(bytes.size)
+            myOutput.write(bytes)
+        }
+
+        private fun writeVarInt(value: Int) {
+            var rest = value
+
+            while (rest and 0x7F.inv() != 0) {
+                myOutput.writeByte(rest and 0x7F or 0x80)
+                rest = rest ushr 7
+            }
+
+            myOutput.writeByte(rest)
+        }
+
+    }
+
+    /**
+     * Reads a graph written by [GraphOutput] from a buffer. Lengths and counts are checked against the rest of the
+     * buffer before anything is allocated for them, so that a corrupted file fails with an [IOException].
+     */
+    internal class GraphInput(private val myBuffer: ByteBuffer, private val myFile: VirtualFile) {
+
+        private val myStrings = ArrayList<String>()
+
+        private val myObjects = ArrayList<CirJsonSchemaObject>()
+
+        private val mySharedValues = ArrayList<Any?>()
+
+        fun readGraph(): CirJsonSchemaObject {
+            val root = readValue() as CirJsonSchemaObject
+            var i = 0
+
+            while (i < myObjects.size) {
+                myObjects[i++].readFrom(this)
+            }
+
+            return root
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        fun readValue(): Any? {
+            return when (val tag = myBuffer.get().toInt()) {
+                NULL -> null
+                STRING -> readString()
+                INT -> myBuffer.getInt()
+                LONG -> myBuffer.getLong()
+                DOUBLE -> myBuffer.getDouble()
+                TRUE -> true
+                FALSE -> false
+                TYPE -> CirJsonSchemaType.entries[readVarInt()]
+                OBJECT -> myObjects[readVarInt()]
+
+                NEW_OBJECT -> {
+                    val schema = CirJsonSchemaObject(myFile, readString())
+                    myObjects.add(schema)
+                    schema
+                }
+
+                ENUM_ARRAY -> EnumArrayValueWrapper(Array(readCount()) { readValue()!! })
+                ENUM_OBJECT -> EnumObjectValueWrapper(readEntries(LinkedHashMap<String, Any?>()) as Map<String, Any>)
+                LIST -> readValues(ArrayList())
+                SET -> readValues(LinkedHashSet())
+                MAP -> readEntries(LinkedHashMap())
+                else -> throw IOException("Unknown value tag $tag")
+            }
+        }
+
+        fun readShared(): Any? {
+            val index = readVarInt()
+
+            if (index == 0) {
+                return null
+            }
+
+            if (index <= mySharedValues.size) {
+                return mySharedValues[index - 1]
+            }
+
+            val value = readValue()
+            mySharedValues.add(value)
+            return value
+        }
+
+        private fun <T : MutableCollection<Any?>> readValues(values: T): T {
+            repeat(readCount()) {
+                values.add(readValue())
+            }
+
+            return values
+        }
+
+        private fun <T : MutableMap<String, Any?>> readEntries(map: T): T {
+            repeat(readCount()) {
+                val key = CirJsonSchemaObject.intern(readString())
+                map[key] = readValue()
+            }
+
+            return map
+        }
+
+        fun readString(): String {
+            val index = readVarInt()
+
+            if (index != 0) {
+                return myStrings[index - 1]
+            }
+
+            val value = String(readBytes(), Charsets.UTF_8)
+            myStrings.add(value)
+            return value
+        }
+
+        fun readBytes(): ByteArray {
+            val bytes = ByteArray(readCount())
+            myBuffer.get(bytes)
+            return bytes
+        }
+
+        /**
+         * Reads the length of an array or the count of the values of a collection. Each byte or value takes at least
+         * one byte, so the count can't be more than the bytes left.
+         */
+        private fun readCount(): Int {
+            val count = readVarInt()
+
+            if (count < 0 || count > myBuffer.remaining()) {
+                throw IOException("Invalid count $count with ${myBuffer.remaining()} bytes left")
+            }
+
+            return count
+        }
+
+        private fun readVarInt(): Int {
+            var result = 0
+            var shift = 0
+
+            while (true) {
+                if (shift > 28) {
+                    throw IOException("Invalid variable-length integer")
+                }
+
+                val b = myBuffer.get().toInt()
+                result = result or (b and 0x7F shl shift)
+
+                if (b and 0x80 == 0) {
+                    return result
+                }
+
+                shift += 7
+            }
+        }
+
+    }
+
+    private const val NULL = 0
+
+    private const val STRING = 1
+
+    private const val INT = 2
+
+    private const val LONG = 3
+
+    private const val DOUBLE = 4
+
+    private const val TRUE = 5
+
+    private const val FALSE = 6
+
+    private const val TYPE = 7
+
+    private const val OBJECT = 8
+
+    private const val NEW_OBJECT = 9
+
+    private const val ENUM_ARRAY = 10
+
+    private const val ENUM_OBJECT = 11
+
+    private const val LIST = 12
+
+    private const val SET = 13
+
+    private const val MAP = 14
+
+}
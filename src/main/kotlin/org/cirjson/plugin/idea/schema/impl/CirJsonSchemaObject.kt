@@ -2,28 +2,23 @@ package org.cirjson.plugin.idea.schema.impl
 
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.progress.ProcessCanceledException
-import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.Pair
-import com.intellij.openapi.util.UserDataHolderBase
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.openapi.vfs.impl.http.HttpVirtualFile
 import com.intellij.openapi.vfs.impl.http.RemoteFileState
-import com.intellij.psi.util.CachedValueProvider
-import com.intellij.psi.util.CachedValuesManager
 import com.intellij.util.ObjectUtils
+import com.intellij.util.SmartList
 import com.intellij.util.containers.CollectionFactory
 import com.intellij.util.containers.ContainerUtil
+import com.intellij.util.containers.Interner
 import org.cirjson.plugin.idea.extentions.kotlin.orFalse
 import org.cirjson.plugin.idea.extentions.kotlin.trueOrNull
-import org.cirjson.plugin.idea.schema.CirJsonDependencyModificationTracker
 import org.cirjson.plugin.idea.schema.CirJsonPointerUtil
 import org.cirjson.plugin.idea.schema.CirJsonSchemaService
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
 import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
 import java.util.*
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ConcurrentMap
 import java.util.regex.Pattern
 import java.util.regex.PatternSyntaxException
 import java.util.stream.Collectors
@@ -33,9 +28,9 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     private var myBackRef: CirJsonSchemaObject? = null
 
-    private var myDefinitionsMap: MutableMap<String, CirJsonSchemaObject>? = null
+    private var myDefinitionsMap: Map<String, CirJsonSchemaObject>? = null
 
-    private var myProperties: MutableMap<String, CirJsonSchemaObject> = HashMap()
+    private var myProperties: Map<String, CirJsonSchemaObject> = emptyMap()
 
     private var myPatternProperties: PatternProperties? = null
 
@@ -83,7 +78,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     var format: String? = null
 
-    private var myTypeVariants: MutableSet<CirJsonSchemaType>? = null
+    private var myTypeVariants: Set<CirJsonSchemaType>? = null
 
     var multipleOf: Number? = null
 
@@ -105,7 +100,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     private var myAdditionalPropertiesAllowed: Boolean? = null
 
-    private var myAdditionalPropertiesNotAllowedFor: MutableSet<String>? = null
+    private var myAdditionalPropertiesNotAllowedFor: Set<String>? = null
 
     private var myAdditionalPropertiesSchema: CirJsonSchemaObject? = null
 
@@ -119,7 +114,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     var containsSchema: CirJsonSchemaObject? = null
 
-    private var myItemsSchemaList: MutableList<CirJsonSchemaObject>? = null
+    private var myItemsSchemaList: List<CirJsonSchemaObject>? = null
 
     var maxItems: Int? = null
 
@@ -134,7 +129,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     var minProperties: Int? = null
 
-    private var myRequired: MutableSet<String>? = null
+    private var myRequired: Set<String>? = null
 
     var propertyDependencies: Map<String, List<String>>? = null
 
@@ -147,17 +142,17 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
         return schemaDependencies?.get(name)
     }
 
-    private var myEnum: MutableList<Any>? = null
+    private var myEnum: List<Any>? = null
 
-    private var myAllOf: MutableList<CirJsonSchemaObject>? = null
+    private var myAllOf: List<CirJsonSchemaObject>? = null
 
-    private var myAnyOf: MutableList<CirJsonSchemaObject>? = null
+    private var myAnyOf: List<CirJsonSchemaObject>? = null
 
-    private var myOneOf: MutableList<CirJsonSchemaObject>? = null
+    private var myOneOf: List<CirJsonSchemaObject>? = null
 
     private var myNot: CirJsonSchemaObject? = null
 
-    private var myIfThenElse: MutableList<IfThenElse>? = null
+    private var myIfThenElse: List<IfThenElse>? = null
 
     private var myIf: CirJsonSchemaObject? = null
 
@@ -171,14 +166,12 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     var deprecationMessage: String? = null
 
-    private var myIdsMap: MutableMap<String, String>? = null
+    private var myIdsMap: Map<String, String>? = null
 
-    private var myEnumMetadata: MutableMap<String, Map<String, String>>? = null
+    private var myEnumMetadata: Map<String, Map<String, String>>? = null
 
     var isForceCaseInsensitive = false
 
-    private val myUserDataHolder = UserDataHolderBase()
-
     constructor(file: VirtualFile?, pointer: String) : this(
             if (file?.url != null && CirJsonFileResolver.isTempOrMockUrl(file.url)) file else null, file?.url, pointer)
 
@@ -186,12 +179,116 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     fun completeInitialization(cirJsonObject: CirJsonValueAdapter) {
         if (myIf != null) {
-            myIfThenElse = ArrayList<IfThenElse>().apply {
-                add(IfThenElse(myIf!!, myThen, myElse))
-            }
+            myIfThenElse = Collections.singletonList(IfThenElse(myIf!!, myThen, myElse))
         }
 
         myIdsMap = CirJsonCachedValues.getOrComputeIdsMap(cirJsonObject.delegate.containingFile)
+        compact()
+    }
+
+    /**
+     * Replaces the empty and single-entry maps of a read object with shared or singleton ones. The collections of a
+     * schema object are not changed after it's read, merging builds new ones, so they may be shared by merge results.
+     */
+    private fun compact() {
+        myProperties = compact(myProperties) ?: emptyMap()
+        myDefinitionsMap = compact(myDefinitionsMap)
+        propertyDependencies = compact(propertyDependencies)
+        schemaDependencies = compact(schemaDependencies)
+        myEnumMetadata = compact(myEnumMetadata)
+    }
+
+    /**
+     * Writes the state of a freshly read schema object, see [CirJsonSchemaGraphCache].
+     */
+    internal fun writeTo(output: CirJsonSchemaGraphCache.GraphOutput) {
+        output.writeShared(myIdsMap)
+        val values = arrayOf(myDefinitionsMap, myProperties, myPatternProperties?.mySchemasMap,
+                myPattern?.source, myTitle, myDescription, myHtmlDescription, languageInjection,
+                languageInjectionPrefix, languageInjectionSuffix, myId, myType, default, example, myRef,
+                myRefIsRecursive, myIsRecursiveAnchor, format, myTypeVariants, multipleOf, maximum, isExclusiveMaximum,
+                exclusiveMaximumNumber, minimum, isExclusiveMinimum, exclusiveMinimumNumber, maxLength, minLength,
+                myAdditionalPropertiesAllowed, myAdditionalPropertiesNotAllowedFor, myAdditionalPropertiesSchema,
+                propertyNamesSchema, myAdditionalItemsAllowed, myAdditionalItemsSchema, myItemsSchema, containsSchema,
+                myItemsSchemaList, maxItems, minItems, uniqueItems, maxProperties, minProperties, myRequired,
+                propertyDependencies, schemaDependencies, myEnum, myAllOf, myAnyOf, myOneOf, myNot, myIf, myThen,
+                myElse, shouldValidateAgainstJSType, myIsValidByExclusion, deprecationMessage, myEnumMetadata,
+                isForceCaseInsensitive)
+        values.forEach { output.writeValue(it) }
+    }
+
+    /**
+     * Reads the state written by [writeTo], in the same order.
+     */
+    @Suppress("UNCHECKED_CAST")
+    internal fun readFrom(input: CirJsonSchemaGraphCache.GraphInput) {
+        myIdsMap = input.readShared() as Map<String, String>?
+        myDefinitionsMap = input.readValue() as Map<String, CirJsonSchemaObject>?
+        myProperties = input.readValue() as Map<String, CirJsonSchemaObject>
+        myPatternProperties = (input.readValue() as Map<String, CirJsonSchemaObject>?)?.let {
+            PatternProperties(it, false)
+        }
+        myPattern = (input.readValue() as String?)?.let { PropertyNamePattern(it) }
+        myTitle = input.readValue() as String?
+        myDescription = input.readValue() as String?
+        myHtmlDescription = input.readValue() as String?
+        languageInjection = input.readValue() as String?
+        languageInjectionPrefix = input.readValue() as String?
+        languageInjectionSuffix = input.readValue() as String?
+        myId = input.readValue() as String?
+        myType = input.readValue() as CirJsonSchemaType?
+        default = input.readValue()
+        example = input.readValue() as Map<String, Any>?
+        myRef = input.readValue() as String?
+        myRefIsRecursive = input.readValue() as Boolean
+        myIsRecursiveAnchor = input.readValue() as Boolean
+        format = input.readValue() as String?
+        myTypeVariants = input.readValue() as Set<CirJsonSchemaType>?
+        multipleOf = input.readValue() as Number?
+        maximum = input.readValue() as Number?
+        isExclusiveMaximum = input.readValue() as Boolean
+        exclusiveMaximumNumber = input.readValue() as Number?
+        minimum = input.readValue() as Number?
+        isExclusiveMinimum = input.readValue() as Boolean
+        exclusiveMinimumNumber = input.readValue() as Number?
+        maxLength = input.readValue() as Int?
+        minLength = input.readValue() as Int?
+        myAdditionalPropertiesAllowed = input.readValue() as Boolean?
+        myAdditionalPropertiesNotAllowedFor = input.readValue() as Set<String>?
+        myAdditionalPropertiesSchema = input.readValue() as CirJsonSchemaObject?
+        propertyNamesSchema = input.readValue() as CirJsonSchemaObject?
+        myAdditionalItemsAllowed = input.readValue() as Boolean?
+        myAdditionalItemsSchema = input.readValue() as CirJsonSchemaObject?
+        myItemsSchema = input.readValue() as CirJsonSchemaObject?
+        containsSchema = input.readValue() as CirJsonSchemaObject?
+        myItemsSchemaList = input.readValue() as List<CirJsonSchemaObject>?
+        maxItems = input.readValue() as Int?
+        minItems = input.readValue() as Int?
+        uniqueItems = input.readValue() as Boolean?
+        maxProperties = input.readValue() as Int?
+        minProperties = input.readValue() as Int?
+        myRequired = (input.readValue() as Set<String>?)?.let { internAll(it, LinkedHashSet(it.size)) }
+        propertyDependencies = input.readValue() as Map<String, List<String>>?
+        schemaDependencies = input.readValue() as Map<String, CirJsonSchemaObject>?
+        myEnum = (input.readValue() as List<Any>?)?.let { internAll(it, ArrayList(it.size)) }
+        myAllOf = input.readValue() as List<CirJsonSchemaObject>?
+        myAnyOf = input.readValue() as List<CirJsonSchemaObject>?
+        myOneOf = input.readValue() as List<CirJsonSchemaObject>?
+        myNot = input.readValue() as CirJsonSchemaObject?
+        myIf = input.readValue() as CirJsonSchemaObject?
+        myThen = input.readValue() as CirJsonSchemaObject?
+        myElse = input.readValue() as CirJsonSchemaObject?
+        shouldValidateAgainstJSType = input.readValue() as Boolean
+        myIsValidByExclusion = input.readValue() as Boolean
+        deprecationMessage = input.readValue() as String?
+        myEnumMetadata = input.readValue() as Map<String, Map<String, String>>?
+        isForceCaseInsensitive = input.readValue() as Boolean
+
+        if (myIf != null) {
+            myIfThenElse = Collections.singletonList(IfThenElse(myIf!!, myThen, myElse))
+        }
+
+        compact()
     }
 
     fun resolveId(id: String): String? {
@@ -199,7 +296,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
     }
 
     private fun mergeTypes(selfType: CirJsonSchemaType?, otherType: CirJsonSchemaType?,
-            otherTypeVariants: MutableSet<CirJsonSchemaType>?): CirJsonSchemaType? {
+            otherTypeVariants: Set<CirJsonSchemaType>?): CirJsonSchemaType? {
         if (selfType == null) {
             return otherType
         }
@@ -241,8 +338,8 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
         return subtypeOfBoth
     }
 
-    private fun mergeTypeVariantSets(self: MutableSet<CirJsonSchemaType>?,
-            other: MutableSet<CirJsonSchemaType>?): MutableSet<CirJsonSchemaType>? {
+    private fun mergeTypeVariantSets(self: Set<CirJsonSchemaType>?,
+            other: Set<CirJsonSchemaType>?): Set<CirJsonSchemaType>? {
         if (self == null) {
             return other
         }
@@ -273,13 +370,8 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
     fun mergeValues(other: CirJsonSchemaObject) {
         // we do not copy id, schema
         mergeProperties(this, other)
-        myDefinitionsMap = copyMap(myDefinitionsMap, other.myDefinitionsMap)
-        val map = copyMap(myPatternProperties?.mySchemasMap, other.myPatternProperties?.mySchemasMap)
-        myPatternProperties = if (map != null) {
-            PatternProperties(map)
-        } else {
-            null
-        }
+        myDefinitionsMap = union(myDefinitionsMap, other.myDefinitionsMap)
+        myPatternProperties = union(myPatternProperties, other.myPatternProperties)
 
         if (!StringUtil.isEmptyOrSpaces(other.myTitle)) {
             myTitle = other.myTitle
@@ -356,7 +448,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
         other.containsSchema?.let { containsSchema = it }
 
-        myItemsSchemaList = copyList(myItemsSchemaList, other.myItemsSchemaList)
+        myItemsSchemaList = concat(myItemsSchemaList, other.myItemsSchemaList)
 
         other.maxItems?.let { maxItems = it }
         other.minItems?.let { minItems = it }
@@ -371,19 +463,17 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             myRequired = set
         }
 
-        propertyDependencies =
-                copyMap(propertyDependencies?.toMutableMap(), other.propertyDependencies?.toMutableMap())
-        schemaDependencies =
-                copyMap(schemaDependencies?.toMutableMap(), other.schemaDependencies?.toMutableMap())
-        myEnumMetadata = copyMap(myEnumMetadata, other.myEnumMetadata)
+        propertyDependencies = union(propertyDependencies, other.propertyDependencies)
+        schemaDependencies = union(schemaDependencies, other.schemaDependencies)
+        myEnumMetadata = union(myEnumMetadata, other.myEnumMetadata)
 
         if (other.myEnum != null) {
             myEnum = other.myEnum
         }
 
-        myAllOf = copyList(myAllOf, other.myAllOf)
-        myAnyOf = copyList(myAnyOf, other.myAnyOf)
-        myOneOf = copyList(myOneOf, other.myOneOf)
+        myAllOf = concat(myAllOf, other.myAllOf)
+        myAnyOf = concat(myAnyOf, other.myAnyOf)
+        myOneOf = concat(myOneOf, other.myOneOf)
 
         if (other.myNot != null) {
             myNot = other.myNot
@@ -407,7 +497,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myDefinitionsMap
         }
         set(value) {
-            myDefinitionsMap = value?.toMutableMap()
+            myDefinitionsMap = value
         }
 
     val isValidByExclusion: Boolean
@@ -420,7 +510,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myProperties
         }
         set(value) {
-            myProperties = value.toMutableMap()
+            myProperties = value
         }
 
     var additionalPropertiesAllowed: Boolean?
@@ -490,7 +580,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myItemsSchemaList
         }
         set(value) {
-            myItemsSchemaList = value?.toMutableList()
+            myItemsSchemaList = value
         }
 
     var type: CirJsonSchemaType?
@@ -506,7 +596,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myTypeVariants
         }
         set(value) {
-            myTypeVariants = value?.toMutableSet()
+            myTypeVariants = value
         }
 
     var ref: String?
@@ -552,7 +642,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myRequired
         }
         set(value) {
-            myRequired = value?.toMutableSet()
+            myRequired = value
         }
 
     var enumMetadata: Map<String, Map<String, String>>?
@@ -560,7 +650,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myEnumMetadata
         }
         set(value) {
-            myEnumMetadata = value?.toMutableMap()
+            myEnumMetadata = value
         }
 
     var enum: List<Any>?
@@ -568,10 +658,10 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return myEnum
         }
         set(value) {
-            myEnum = value?.toMutableList()
+            myEnum = value
         }
 
-    var allOf: MutableList<CirJsonSchemaObject>?
+    var allOf: List<CirJsonSchemaObject>?
         get() {
             return myAllOf
         }
@@ -579,7 +669,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             myAllOf = value
         }
 
-    var anyOf: MutableList<CirJsonSchemaObject>?
+    var anyOf: List<CirJsonSchemaObject>?
         get() {
             return myAnyOf
         }
@@ -587,7 +677,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             myAnyOf = value
         }
 
-    var oneOf: MutableList<CirJsonSchemaObject>?
+    var oneOf: List<CirJsonSchemaObject>?
         get() {
             return myOneOf
         }
@@ -857,14 +947,12 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
     fun resolveRefSchema(service: CirJsonSchemaService): CirJsonSchemaObject? {
         val ref = this.ref
         assert(!StringUtil.isEmptyOrSpaces(ref))
-        val refsStorage = getComputedRefsStorage(service.project)
-        val schemaObject = refsStorage.getOrDefault(ref, NULL_OBJ)
-
-        if (schemaObject != NULL_OBJ) {
-            return schemaObject
-        }
+        val refGraph = CirJsonSchemaRefGraph.getInstance(service.project)
+        refGraph.getResolved(this, ref!!)?.let { return it.get() }
 
-        val value = fetchSchemaFromRefDefinition(ref!!, this, service, isRefRecursive)
+        val modificationCount = refGraph.modificationCount
+        val fileUrls = SmartList<String>()
+        val value = fetchSchemaFromRefDefinition(ref, this, service, isRefRecursive, fileUrls)
 
         if (!CirJsonFileResolver.isHttpPath(ref)) {
             service.registerReference(ref)
@@ -881,20 +969,17 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             value.backReference = this
         }
 
-        refsStorage[ref] = value ?: NULL_OBJ
-        return value
-    }
-
-    private fun getComputedRefsStorage(project: Project): ConcurrentMap<String, CirJsonSchemaObject> {
-        return CachedValuesManager.getManager(project).getCachedValue(myUserDataHolder) {
-            CachedValueProvider.Result.create(ConcurrentHashMap(),
-                    CirJsonDependencyModificationTracker.forProject(project))
+        if (value != null && value != NULL_OBJ) {
+            value.fileUrl?.let { fileUrls.add(it) }
         }
+
+        refGraph.putResolved(this, ref, value, fileUrls, modificationCount)
+        return value
     }
 
-    private class PropertyNamePattern(pattern: String) {
+    private class PropertyNamePattern(val source: String) {
 
-        val pattern = StringUtil.unescapeBackSlashes(pattern)
+        val pattern = StringUtil.unescapeBackSlashes(source)
 
         val patternError: String?
 
@@ -903,7 +988,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
         private val myValuePatternCache = CollectionFactory.createConcurrentWeakKeyWeakValueMap<String, Boolean>()
 
         init {
-            val pair = compilePattern(pattern)
+            val pair = compilePattern(source)
             patternError = pair.second
             myCompiledPattern = pair.first
         }
@@ -922,44 +1007,64 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
     }
 
-    private class PatternProperties(schemasMap: Map<String, CirJsonSchemaObject>) {
+    /**
+     * @param unescape whether the patterns of [schemasMap] are escaped, as they are in the schema file
+     */
+    private class PatternProperties(schemasMap: Map<String, CirJsonSchemaObject>, unescape: Boolean = true) {
 
         val mySchemasMap: MutableMap<String, CirJsonSchemaObject> = HashMap()
 
-        private val myCachedPatterns: MutableMap<String, Pattern> = HashMap()
+        private val myPatternSchemas = ArrayList<CirJsonSchemaObject>()
 
-        private val myCachedPatternProperties: MutableMap<String, String> =
-                CollectionFactory.createConcurrentWeakKeyWeakValueMap()
+        private val myMatcher: CirJsonSchemaPropertyPatternMatcher
+
+        /**
+         * The index of the pattern matching each recently looked up name, `-1` when none does. Objects usually have the
+         * same few property names, so the most recent ones are enough.
+         */
+        private val myMatches = object : LinkedHashMap<String, Int>(16, 0.75f, true) {
+
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Int>?): Boolean {
+                return size > MAX_CACHED_MATCHES
+            }
+
+        }
 
         init {
-            schemasMap.keys.forEach { mySchemasMap[StringUtil.unescapeBackSlashes(it)] = schemasMap[it]!! }
-            mySchemasMap.keys.forEach {
-                val pair = compilePattern(it)
+            schemasMap.keys.forEach {
+                mySchemasMap[if (unescape) StringUtil.unescapeBackSlashes(it) else it] = schemasMap[it]!!
+            }
+
+            val patterns = ArrayList<Pattern>()
+
+            for ((key, schema) in mySchemasMap) {
+                val pair = compilePattern(key)
 
                 if (pair.second == null) {
                     assert(pair.first != null)
-                    myCachedPatterns[it] = pair.first!!
+                    patterns.add(pair.first!!)
+                    myPatternSchemas.add(schema)
                 }
             }
+
+            myMatcher = CirJsonSchemaPropertyPatternMatcher(patterns)
         }
 
         fun getPatternPropertySchema(name: String): CirJsonSchemaObject? {
-            var value = myCachedPatternProperties[name]
+            var index = synchronized(myMatches) { myMatches[name] }
 
-            if (value != null) {
-                assert(mySchemasMap.containsKey(value))
-                return mySchemasMap[value]
+            if (index == null) {
+                index = myMatcher.findFirst(name)
+                synchronized(myMatches) { myMatches[name] = index }
             }
 
-            value = ContainerUtil.find(myCachedPatterns.keys) { matchPattern(myCachedPatterns[it]!!, name) }
+            return if (index >= 0) myPatternSchemas[index] else null
+        }
 
-            if (value != null) {
-                myCachedPatternProperties[name] = value
-                assert(mySchemasMap.containsKey(value))
-                return mySchemasMap[value]
-            }
+        companion object {
+
+            private const val MAX_CACHED_MATCHES = 1024
 
-            return null
         }
 
     }
@@ -968,6 +1073,8 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
 
         private val LOG = Logger.getInstance(CirJsonSchemaObject::class.java)
 
+        private val INTERNER = Interner.createWeakInterner<String>()
+
         const val MOCK_URL = "mock:///"
 
         const val TEMP_URL = "temp:///"
@@ -1084,39 +1191,100 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
         }
 
         private fun mergeProperties(thisObject: CirJsonSchemaObject, otherObject: CirJsonSchemaObject) {
-            for (prop in otherObject.myProperties.entries) {
-                val key = prop.key
-                val otherProp = prop.value
+            val properties = thisObject.myProperties
 
-                if (key !in thisObject.myProperties.keys) {
-                    thisObject.myProperties[key] = otherObject
-                } else {
-                    val existingProp = thisObject.myProperties[key]!!
-                    thisObject.myProperties[key] = merge(existingProp, otherProp, otherProp)
-                }
+            if (properties.isEmpty()) {
+                thisObject.myProperties = otherObject.myProperties
+                return
+            }
+
+            if (otherObject.myProperties.isEmpty()) {
+                return
+            }
+
+            val result = HashMap(properties)
+
+            for ((key, otherProp) in otherObject.myProperties) {
+                val existingProp = result[key]
+                result[key] = if (existingProp == null) otherProp else merge(existingProp, otherProp, otherProp)
             }
+
+            thisObject.myProperties = result
         }
 
-        private fun <T> copyList(target: MutableList<T>?, source: MutableList<T>?): MutableList<T>? {
+        /**
+         * Returns the elements of [target] followed by those of [source], sharing either list when the other is empty.
+         */
+        private fun <T> concat(target: List<T>?, source: List<T>?): List<T>? {
             if (source.isNullOrEmpty()) {
                 return target
             }
 
-            val result = target ?: ArrayList(source.size)
+            if (target.isNullOrEmpty()) {
+                return source
+            }
+
+            val result = ArrayList<T>(target.size + source.size)
+            result.addAll(target)
             result.addAll(source)
             return result
         }
 
-        private fun <K, V> copyMap(target: MutableMap<K, V>?, source: MutableMap<K, V>?): MutableMap<K, V>? {
+        /**
+         * Returns the entries of [target] overridden by those of [source], sharing either map when the other is empty.
+         */
+        private fun <K, V> union(target: Map<K, V>?, source: Map<K, V>?): Map<K, V>? {
             if (source.isNullOrEmpty()) {
                 return target
             }
 
-            val result = target ?: HashMap(source.size)
+            if (target.isNullOrEmpty()) {
+                return source
+            }
+
+            val result = HashMap<K, V>(target)
             result.putAll(source)
             return result
         }
 
+        private fun union(target: PatternProperties?, source: PatternProperties?): PatternProperties? {
+            if (source == null) {
+                return target
+            }
+
+            if (target == null) {
+                return source
+            }
+
+            return PatternProperties(target.mySchemasMap + source.mySchemasMap, false)
+        }
+
+        private fun <K, V> compact(map: Map<K, V>?): Map<K, V>? {
+            return when (map?.size) {
+                null -> null
+                0 -> emptyMap()
+                1 -> map.entries.first().let { Collections.singletonMap(it.key, it.value) }
+                else -> map
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun <T : Any, C : MutableCollection<T>> internAll(values: Collection<T>, result: C): C {
+            for (value in values) {
+                result.add(if (value is String) intern(value) as T else value)
+            }
+
+            return result
+        }
+
+        /**
+         * Returns the shared instance of a property name or enum value, so that equal names read from several schemas
+         * or merged by `allOf` take the memory of one string.
+         */
+        internal fun intern(value: String): String {
+            return INTERNER.intern(value)
+        }
+
         private fun tryParseInt(s: String): Int? {
             return try {
                 s.toInt()
@@ -1194,17 +1362,23 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
             return typeDescriptions.collect(Collectors.joining(" | ", "", if (isShort) "| ..." else ""))
         }
 
+        /**
+         * @param fileUrls collects the URLs of the schema files read to find the outermost recursive anchor
+         */
         private fun fetchSchemaFromRefDefinition(ref: String, schema: CirJsonSchemaObject,
-                service: CirJsonSchemaService, recursive: Boolean): CirJsonSchemaObject? {
+                service: CirJsonSchemaService, recursive: Boolean,
+                fileUrls: MutableCollection<String>): CirJsonSchemaObject? {
             val schemaFile = service.resolveSchemaFile(schema) ?: return null
             val splitter = CirJsonSchemaVariantsTreeBuilder.SchemaUrlSplitter(ref)
             val schemaId = splitter.schemaId
 
             if (schemaId != null) {
-                val refSchema = resolveSchemaByReference(service, schemaFile, schemaId) ?: return null
+                val refSchema = resolveSchemaByReference(service, schemaFile, schemaId, fileUrls) ?: return null
                 return findRelativeDefinition(refSchema, splitter, service)
             }
 
+            // the definition may be missing, and the reference must be resolved again once it's added to the file
+            fileUrls.add(schemaFile.url)
             var rootSchema = service.getSchemaObjectForSchemaFile(schemaFile)
 
             if (rootSchema == null) {
@@ -1218,6 +1392,8 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
                     val file = ObjectUtils.coalesce(backRef.rawFile,
                             if (backRef.fileUrl == null) null else CirJsonFileResolver.urlToFile(backRef.fileUrl))
                             ?: break
+                    fileUrls.add(file.url)
+
                     try {
                         rootSchema = CirJsonSchemaReader.readFromFile(service.project, file)
                     } catch (e: Exception) {
@@ -1230,7 +1406,7 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
         }
 
         private fun resolveSchemaByReference(service: CirJsonSchemaService, schemaFile: VirtualFile,
-                schemaId: String): CirJsonSchemaObject? {
+                schemaId: String, fileUrls: MutableCollection<String>): CirJsonSchemaObject? {
             val refFile = service.findSchemaFileByReference(schemaId, schemaFile)
 
             if (refFile == null) {
@@ -1238,6 +1414,8 @@ class CirJsonSchemaObject private constructor(val rawFile: VirtualFile?, val fil
                 return null
             }
 
+            fileUrls.add(refFile.url)
+
             if (refFile is HttpVirtualFile) {
                 val info = refFile.fileInfo
 
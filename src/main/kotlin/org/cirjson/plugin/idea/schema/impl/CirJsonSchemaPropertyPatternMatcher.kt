@@ -0,0 +1,103 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import java.util.regex.Pattern
+
+/**
+ * Finds the first of the `patternProperties` patterns of a schema matching a property name. Most patterns start or end
+ * with literal text, like `^x-` or `_id$`: the literal prefix and suffix each pattern requires are extracted once, and
+ * names without them are rejected without running the regex. Patterns made only of literal text are compared as
+ * strings. Other names are matched with [CirJsonSchemaObject.matchPattern], like before.
+ */
+internal class CirJsonSchemaPropertyPatternMatcher(patterns: List<Pattern>) {
+
+    private val myEntries = patterns.map { createEntry(it) }
+
+    /**
+     * Returns the index of the first pattern matching the [name], or `-1` if none does.
+     */
+    fun findFirst(name: String): Int {
+        for ((i, entry) in myEntries.withIndex()) {
+            if (entry.matches(name)) {
+                return i
+            }
+        }
+
+        return -1
+    }
+
+    private class Entry(private val myPattern: Pattern, private val myPrefix: String, private val mySuffix: String,
+            private val myIsLiteral: Boolean) {
+
+        fun matches(name: String): Boolean {
+            if (myIsLiteral) {
+                return name == myPrefix
+            }
+
+            if (!name.startsWith(myPrefix) || !name.endsWith(mySuffix)
+                    || name.length < myPrefix.length + mySuffix.length) {
+                return false
+            }
+
+            return CirJsonSchemaObject.matchPattern(myPattern, name)
+        }
+
+    }
+
+    private companion object {
+
+        fun createEntry(pattern: Pattern): Entry {
+            var body = pattern.pattern()
+
+            // inline flags may change how literal characters match, and alternatives don't share a prefix or suffix
+            if (pattern.flags() != 0 || "(?" in body || '|' in body) {
+                return Entry(pattern, "", "", false)
+            }
+
+            // the whole name is matched, so the anchors don't change anything
+            if (body.startsWith("^")) {
+                body = body.substring(1)
+            }
+
+            if (body.endsWith("$") && !body.endsWith("\\$")) {
+                body = body.substring(0, body.length - 1)
+            }
+
+            var prefixEnd = 0
+
+            while (prefixEnd < body.length && isLiteral(body[prefixEnd])) {
+                prefixEnd++
+            }
+
+            if (prefixEnd == body.length) {
+                return Entry(pattern, body, "", true)
+            }
+
+            // the last character of the prefix may be optional or repeated
+            if (body[prefixEnd] in "?*{" && prefixEnd > 0) {
+                prefixEnd--
+            }
+
+            var suffixStart = body.length
+
+            while (suffixStart > prefixEnd && isLiteral(body[suffixStart - 1])) {
+                suffixStart--
+            }
+
+            // the suffix may be part of an escape, like `\d` or `\x41`
+            if (suffixStart > 0 && body[suffixStart - 1] == '\\') {
+                suffixStart = body.length
+            }
+
+            return Entry(pattern, body.substring(0, prefixEnd), body.substring(suffixStart), false)
+        }
+
+        /**
+         * Returns whether the character matches only itself in a regex, outside character classes.
+         */
+        fun isLiteral(c: Char): Boolean {
+            return c.isLetterOrDigit() || c in "_-:/@#%&~,;='\"<>! "
+        }
+
+    }
+
+}
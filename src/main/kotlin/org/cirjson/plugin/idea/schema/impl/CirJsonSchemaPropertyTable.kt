@@ -0,0 +1,38 @@
+package org.cirjson.plugin.idea.schema.impl
+
+/**
+ * Resolution of the properties of an object against a single schema, in the order the variants tree builder follows
+ * for a property step: the schemas of `properties` by exact name, then the first matching `patternProperties`, then
+ * `additionalProperties`. Everything that doesn't depend on the name is read once, so resolving a property is a single
+ * map lookup in the common case, without the pointer positions and pairs of
+ * [CirJsonSchemaVariantsTreeBuilder.doSingleStep].
+ *
+ * A table is built for each checked object rather than kept with the validation plan of the schema, since the schemas
+ * merged for a single value would each leave a plan behind.
+ */
+class CirJsonSchemaPropertyTable(private val mySchema: CirJsonSchemaObject) {
+
+    private val myProperties = mySchema.properties
+
+    private val myAdditionalPropertiesSchema = mySchema.additionalPropertiesSchema
+
+    /**
+     * Whether properties without a schema are allowed, when [getPropertySchema] returns `null`.
+     */
+    val isAdditionalPropertyAllowed: Boolean = mySchema.additionalPropertiesAllowed != false
+
+    /**
+     * Returns the schema the value of the property with the given [name] is checked against, or `null` if there is
+     * none.
+     */
+    fun getPropertySchema(name: String): CirJsonSchemaObject? {
+        val child = myProperties[name]
+
+        if (child != null) {
+            return child
+        }
+
+        return mySchema.getMatchingPatternPropertySchema(name) ?: myAdditionalPropertiesSchema
+    }
+
+}
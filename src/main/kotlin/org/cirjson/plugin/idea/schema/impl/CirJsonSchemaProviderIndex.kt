@@ -0,0 +1,114 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.containers.CollectionFactory
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import org.cirjson.plugin.idea.schema.CirJsonMappingKind
+import org.cirjson.plugin.idea.schema.CirJsonSchemaPatternMatcher
+import org.cirjson.plugin.idea.schema.UserDefinedCirJsonSchemaConfiguration
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaFileProvider
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaUserDefinedProviderFactory
+import java.util.*
+
+/**
+ * Index of schema providers by the files they may be available for, so that only a few providers are asked whether
+ * they apply to a file. User-defined providers are indexed by the mappings they were created from:
+ *
+ * * file mappings by file name,
+ * * patterns by a [CirJsonSchemaPatternMatcher] of the patterns of all the providers,
+ * * directory mappings by directory path.
+ *
+ * Other providers are always candidates. The index only narrows the candidates down,
+ * [CirJsonSchemaFileProvider.isAvailable] still has the last word.
+ */
+internal class CirJsonSchemaProviderIndex(project: Project, private val myProviders: List<CirJsonSchemaFileProvider>) {
+
+    private val myByName = HashMap<String, IntArrayList>()
+
+    private val myByDirectory = CollectionFactory.createFilePathMap<IntArrayList>()
+
+    private val myFallback = BitSet()
+
+    private val myPatterns: CirJsonSchemaPatternMatcher
+
+    init {
+        val basePath = project.basePath
+        val masks = arrayListOf<Pair<String, Int>>()
+
+        for ((index, provider) in myProviders.withIndex()) {
+            if (provider !is CirJsonSchemaUserDefinedProviderFactory.MyProvider) {
+                myFallback.set(index)
+                continue
+            }
+
+            for (mapping in provider.mappings) {
+                when (mapping.mappingKind) {
+                    CirJsonMappingKind.FILE -> addFile(mapping, index)
+                    CirJsonMappingKind.PATTERN -> masks.add(mapping.path to index)
+                    CirJsonMappingKind.DIRECTORY -> addDirectory(mapping, basePath, index)
+                }
+            }
+        }
+
+        myPatterns = CirJsonSchemaPatternMatcher(masks)
+    }
+
+    private fun addFile(mapping: UserDefinedCirJsonSchemaConfiguration.Item, index: Int) {
+        val path = mapping.path
+
+        if (path.isNotEmpty()) {
+            add(myByName, StringUtil.toLowerCase(path.substringAfterLast('/')), index)
+        }
+    }
+
+    private fun addDirectory(mapping: UserDefinedCirJsonSchemaConfiguration.Item, basePath: String?, index: Int) {
+        if (basePath != null) {
+            val path = FileUtil.toSystemIndependentName(mapping.path)
+            add(myByDirectory, FileUtil.toCanonicalPath(if (path.isEmpty()) basePath else "$basePath/$path"), index)
+        }
+    }
+
+    private fun add(map: MutableMap<String, IntArrayList>, key: String, index: Int) {
+        map.computeIfAbsent(key) { IntArrayList() }.add(index)
+    }
+
+    /**
+     * Returns the providers that may be available for the [file], in the order they were given.
+     */
+    fun getCandidates(file: VirtualFile): List<CirJsonSchemaFileProvider> {
+        val candidates = myPatterns.findMatches(file)
+        candidates.or(myFallback)
+        addAll(candidates, myByName[StringUtil.toLowerCase(file.name)])
+
+        if (myByDirectory.isNotEmpty()) {
+            var parent = file.parent
+
+            while (parent != null) {
+                addAll(candidates, myByDirectory[parent.path])
+                parent = parent.parent
+            }
+        }
+
+        val result = ArrayList<CirJsonSchemaFileProvider>(candidates.cardinality())
+        var index = candidates.nextSetBit(0)
+
+        while (index >= 0) {
+            result.add(myProviders[index])
+            index = candidates.nextSetBit(index + 1)
+        }
+
+        return result
+    }
+
+    private fun addAll(candidates: BitSet, indices: IntArrayList?) {
+        if (indices != null) {
+            for (i in 0..<indices.size) {
+                candidates.set(indices.getInt(i))
+            }
+        }
+    }
+
+}
@@ -53,6 +53,8 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
             val currentSchema = currentItem.first
             val pointer = currentSchema.pointer
             val adapter = currentItem.second
+            // kept apart from the definitions, which the "definitions" key replaces wherever it comes in the object
+            val unknownDefinitions = HashMap<String, CirJsonSchemaObject>()
 
             if (adapter is CirJsonObjectValueAdapter) {
                 val list = adapter.propertyList
@@ -70,17 +72,24 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
                     if (reader != null) {
                         reader.read(value, currentSchema, myQueue, myFile)
                     } else {
-                        readSingleDefinition(name, value, currentSchema, pointer)
+                        readSingleDefinition(name, value, unknownDefinitions, pointer)
                     }
                 }
             } else if (adapter is CirJsonArrayValueAdapter) {
                 val values = adapter.elements
 
                 for (indexedValue in values.withIndex()) {
-                    readSingleDefinition(indexedValue.index.toString(), indexedValue.value, currentSchema, pointer)
+                    readSingleDefinition(indexedValue.index.toString(), indexedValue.value, unknownDefinitions,
+                            pointer)
                 }
             }
 
+            if (unknownDefinitions.isNotEmpty()) {
+                // the definitions of the "definitions" key win over unknown keys of the same name
+                currentSchema.definitionsMap?.let { unknownDefinitions.putAll(it) }
+                currentSchema.definitionsMap = unknownDefinitions
+            }
+
             if (currentSchema.id != null) {
                 myIds[currentSchema.id!!] = currentSchema
             }
@@ -91,13 +100,10 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
         return root
     }
 
-    private fun readSingleDefinition(name: String, value: CirJsonValueAdapter, currentSchema: CirJsonSchemaObject,
-            pointer: String) {
+    private fun readSingleDefinition(name: String, value: CirJsonValueAdapter,
+            definitions: MutableMap<String, CirJsonSchemaObject>, pointer: String) {
         val nextPointer = getNewPointer(name, pointer)
-        val defined = enqueue(myQueue, CirJsonSchemaObject(myFile, nextPointer), value)
-        val definitions = currentSchema.definitionsMap?.toMutableMap()
-                ?: HashMap<String, CirJsonSchemaObject>().also { currentSchema.definitionsMap = it }
-        definitions[name] = defined
+        definitions[name] = enqueue(myQueue, CirJsonSchemaObject(myFile, nextPointer), value)
     }
 
     fun interface MyReader {
@@ -415,7 +421,10 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
 
         private fun readEnumValue(value: CirJsonValueAdapter): Any? {
             return when {
-                value.isStringLiteral -> "\"${StringUtil.unquoteString(value.delegate.text)}\""
+                value.isStringLiteral -> {
+                    CirJsonSchemaObject.intern("\"${StringUtil.unquoteString(value.delegate.text)}\"")
+                }
+
                 value.isNumberLiteral -> getNumber(value)
                 value.isBooleanLiteral -> getBoolean(value)
                 value.isNull -> "null"
@@ -568,7 +577,7 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
             return MyReader { element, obj, _, _ ->
                 if (element is CirJsonArrayValueAdapter) {
                     obj.required = LinkedHashSet(element.elements.filter(notEmptyString())
-                            .map { StringUtil.unquoteString(it.delegate.text) })
+                            .map { CirJsonSchemaObject.intern(StringUtil.unquoteString(it.delegate.text)) })
                 }
             }
         }
@@ -631,7 +640,7 @@ class CirJsonSchemaReader(private val myFile: VirtualFile) {
                 }
 
                 val value = values.first()
-                val propertyName = property.name ?: continue
+                val propertyName = CirJsonSchemaObject.intern(property.name ?: continue)
 
                 if (value.isBooleanLiteral) {
                     map[propertyName] = CirJsonSchemaObject(virtualFile, getNewPointer(propertyName, parentPointer))
@@ -0,0 +1,138 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.components.service
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Ref
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.util.containers.CollectionFactory
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The resolved `$ref`s of the schemas of the project, as edges from the referencing schema object, at its file and
+ * pointer, to the schema object the reference resolves to.
+ *
+ * Each edge is kept until one of the schema files its resolution read changes: the file it leads to, and for recursive
+ * references, the files of the referencing schemas followed to the outermost recursive anchor. The refs of the schemas
+ * that don't depend on the changed file are kept.
+ *
+ * References that couldn't be resolved, because the file or the definition they point to is missing or is still being
+ * downloaded, are kept too. They are dropped like the others when the file they were looked up in changes, and also
+ * when any file changes, as the file they point to may have been created.
+ */
+@Service(Service.Level.PROJECT)
+class CirJsonSchemaRefGraph {
+
+    /**
+     * The edge of each schema object whose reference has been resolved. Keys are weak, so the edges of the objects of
+     * a schema that has been read again are dropped with them.
+     */
+    private val myEdges = CollectionFactory.createConcurrentWeakIdentityMap<CirJsonSchemaObject, Edge>()
+
+    /**
+     * The schema objects whose edge was resolved through each file, by the URL of the file.
+     */
+    private val myIncoming = ConcurrentHashMap<String, MutableSet<CirJsonSchemaObject>>()
+
+    private val myModificationCount = AtomicLong()
+
+    /**
+     * Incremented whenever edges are dropped. Resolutions started before are not recorded, as they may have been made
+     * against a schema that changed since.
+     */
+    val modificationCount: Long
+        get() = myModificationCount.get()
+
+    /**
+     * Returns the schema object the [ref] of [source] was resolved to, `null` inside the reference when it couldn't be
+     * resolved, or `null` when it hasn't been resolved yet or its resolution has been dropped.
+     */
+    fun getResolved(source: CirJsonSchemaObject, ref: String): Ref<CirJsonSchemaObject?>? {
+        val edge = myEdges[source] ?: return null
+
+        if (edge.ref != ref) {
+            return null
+        }
+
+        if (edge.target == null || edge.target === CirJsonSchemaObject.NULL_OBJ) {
+            if (edge.vfsModificationCount != VirtualFileManager.getInstance().modificationCount) {
+                return null
+            }
+        }
+
+        return Ref.create(edge.target)
+    }
+
+    /**
+     * Records the resolution of the [ref] of [source] to [target], reached through the schema files of [fileUrls],
+     * unless edges have been dropped since the [modificationCount] the resolution was started at. A `null` or
+     * [CirJsonSchemaObject.NULL_OBJ] [target] is also dropped when any file changes.
+     */
+    fun putResolved(source: CirJsonSchemaObject, ref: String, target: CirJsonSchemaObject?,
+            fileUrls: Collection<String>, modificationCount: Long) {
+        val vfsModificationCount = VirtualFileManager.getInstance().modificationCount
+
+        synchronized(this) {
+            if (modificationCount != myModificationCount.get()) {
+                return
+            }
+
+            myEdges[source] = Edge(ref, target, vfsModificationCount)
+
+            for (url in fileUrls) {
+                myIncoming.computeIfAbsent(url) {
+                    Collections.newSetFromMap(CollectionFactory.createConcurrentWeakIdentityMap())
+                }.add(source)
+            }
+        }
+    }
+
+    /**
+     * Returns whether a resolved reference was resolved through the [file].
+     */
+    fun isReferenced(file: VirtualFile): Boolean {
+        return myIncoming[file.url]?.isNotEmpty() == true
+    }
+
+    /**
+     * Drops the edges resolved through the [files].
+     */
+    fun invalidate(files: Collection<VirtualFile>) {
+        synchronized(this) {
+            myModificationCount.incrementAndGet()
+
+            for (file in files) {
+                myIncoming.remove(file.url)?.forEach { myEdges.remove(it) }
+            }
+        }
+    }
+
+    /**
+     * Drops all the edges, for changes that may resolve any reference differently, like changes of the mappings.
+     */
+    fun clear() {
+        synchronized(this) {
+            myModificationCount.incrementAndGet()
+            myEdges.clear()
+            myIncoming.clear()
+        }
+    }
+
+    /**
+     * @param vfsModificationCount the modification count of the VFS when the edge was resolved, for the edges of
+     * unresolved references
+     */
+    private class Edge(val ref: String, val target: CirJsonSchemaObject?, val vfsModificationCount: Long)
+
+    companion object {
+
+        fun getInstance(project: Project): CirJsonSchemaRefGraph {
+            return project.service()
+        }
+
+    }
+
+}
@@ -120,26 +120,26 @@ class CirJsonSchemaResolver(private val myProject: Project, private val mySchema
             while (realPosition != null && !realPosition.empty) {
                 if (value is CirJsonObjectValueAdapter) {
                     val name = realPosition.firstName ?: return null
-                    val property = findProperty(value, name)
+                    val property = value.findProperty(name)
 
                     if (property != null) {
                         value = getValue(property) ?: return null
                     } else {
-                        val props = findProperty(value, CirJsonSchemaObject.PROPERTIES)
+                        val props = value.findProperty(CirJsonSchemaObject.PROPERTIES)
 
                         if (props != null) {
                             value = getValue(props)
                             continue
                         }
 
-                        val defs = findProperty(value, CirJsonSchemaObject.DEFINITIONS)
+                        val defs = value.findProperty(CirJsonSchemaObject.DEFINITIONS)
 
                         if (defs != null) {
                             value = getValue(defs)
                             continue
                         }
 
-                        val defs9 = findProperty(value, CirJsonSchemaObject.DEFINITIONS_v9)
+                        val defs9 = value.findProperty(CirJsonSchemaObject.DEFINITIONS_v9)
 
                         if (defs9 != null) {
                             value = getValue(defs9)
@@ -170,10 +170,6 @@ class CirJsonSchemaResolver(private val myProject: Project, private val mySchema
             return propertyNameElement ?: delegate
         }
 
-        private fun findProperty(value: CirJsonObjectValueAdapter, name: String): CirJsonPropertyAdapter? {
-            return value.propertyList.find { it.name == name }
-        }
-
         private fun getValue(property: CirJsonPropertyAdapter): CirJsonValueAdapter? {
             val values = property.values
             return if (values.size == 1) values.first() else null
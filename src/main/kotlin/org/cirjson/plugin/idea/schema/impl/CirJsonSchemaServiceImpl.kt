@@ -7,6 +7,7 @@ import com.intellij.ide.lightEdit.LightEdit
 import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.project.Project
@@ -15,12 +16,19 @@ import com.intellij.openapi.util.ModificationTracker
 import com.intellij.openapi.util.Ref
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VfsUtilCore
 import com.intellij.openapi.vfs.VirtualFileManager
 import com.intellij.openapi.vfs.impl.http.HttpVirtualFile
+import com.intellij.openapi.vfs.newvfs.BulkFileListener
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent
 import com.intellij.psi.PsiFile
 import com.intellij.psi.PsiManager
 import com.intellij.util.SmartList
 import com.intellij.util.concurrency.SynchronizedClearableLazy
+import com.intellij.util.containers.CollectionFactory
 import com.intellij.util.containers.ContainerUtil
 import org.cirjson.plugin.idea.schema.*
 import org.cirjson.plugin.idea.schema.extension.*
@@ -29,6 +37,7 @@ import org.cirjson.plugin.idea.schema.remote.CirJsonSchemaCatalogExclusion
 import org.cirjson.plugin.idea.schema.remote.CirJsonSchemaCatalogManager
 import java.util.*
 import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
 import java.util.function.Consumer
 
 open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJsonSchemaService, ModificationTracker,
@@ -64,11 +73,30 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
 
     private val myResetActions = ContainerUtil.createConcurrentList<Runnable>()
 
+    private val myResolutions = CollectionFactory.createConcurrentWeakMap<VirtualFile, FileResolution>()
+
+    private val myResetCount = AtomicLong(0)
+
+    private val myMovedSchemasCount = AtomicLong(0)
+
     init {
         CirJsonSchemaProviderFactory.EP_NAME.addChangeListener(this::reset, this)
         CirJsonSchemaEnabler.EXTENSION_POINT_NAME.addChangeListener(this::reset, this)
         CirJsonSchemaCatalogExclusion.EP_NAME.addChangeListener(this::reset, this)
         myCatalogManager.startUpdates()
+        project.messageBus.connect(this).subscribe(VirtualFileManager.VFS_CHANGES, object : BulkFileListener {
+
+            override fun after(events: List<VFileEvent>) {
+                for (event in events) {
+                    when (event) {
+                        is VFileContentChangeEvent -> myCatalogManager.fileContentChanged(event.file)
+                        is VFileMoveEvent -> fileMoved(event.file)
+                        is VFilePropertyChangeEvent -> if (event.isRename) fileMoved(event.file)
+                    }
+                }
+            }
+
+        })
     }
 
     override fun getModificationCount(): Long {
@@ -85,6 +113,10 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
     private fun resetWithCurrentFactories() {
         myState.reset()
         myBuiltInSchemaIds.drop()
+        myResetCount.incrementAndGet()
+        myResolutions.clear()
+        CirJsonSchemaRefGraph.getInstance(project).clear()
+        CirJsonSchemaValidationCache.getInstance(project).clear()
 
         for (action in myResetActions) {
             action.run()
@@ -93,7 +125,78 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
         DaemonCodeAnalyzer.getInstance(project).restart()
     }
 
+    /**
+     * Returns the schemas of the file. The result is cached per file, and reused until the `${'$'}schema` property of
+     * the file, the mappings, the providers or the catalog change, or the file or one of its schemas is moved, renamed
+     * or deleted. Results taken from a schema comment or from a [ContentAwareCirJsonSchemaFileProvider] are also
+     * dropped when the file is edited, and results that looked up a missing schema file when a file is created. The
+     * providers of the plugin and the catalog decide from the path of the file only, while the providers of other
+     * plugins may decide from anything, so their results are not cached.
+     */
     fun getSchemasForFile(file: VirtualFile, single: Boolean, onlyUserSchemas: Boolean): Collection<VirtualFile> {
+        val schemaUrl = CirJsonCachedValues.getSchemaUrlFromSchemaProperty(file, project)
+        val stamps = longArrayOf(myResetCount.get(),
+                CirJsonSchemaMappingsProjectConfiguration.getInstance(project).modificationCount,
+                myCatalogManager.modificationCount, myMovedSchemasCount.get())
+        var resolution = myResolutions[file]
+
+        if (resolution == null || resolution.schemaUrl != schemaUrl || !resolution.stamps.contentEquals(stamps)) {
+            resolution = FileResolution(schemaUrl, stamps)
+            myResolutions[file] = resolution
+        }
+
+        val variant = (if (single) 1 else 0) + (if (onlyUserSchemas) 2 else 0)
+        val cached = resolution.variants[variant]
+
+        if (cached != null && isUpToDate(file, cached)) {
+            return cached.schemas
+        }
+
+        val dependencies = ResolutionDependencies()
+        val contentStamp = getContentStamp(file)
+        val structureStamp = VirtualFileManager.getInstance().structureModificationCount
+        val schemas = computeSchemasForFile(file, single, onlyUserSchemas, dependencies)
+
+        if (!dependencies.asksOtherPlugins) {
+            resolution.variants[variant] = ResolvedSchemas(schemas,
+                    if (dependencies.readsContent) contentStamp else -1L,
+                    if (dependencies.looksUpMissingFile) structureStamp else -1L)
+        }
+
+        return schemas
+    }
+
+    private fun isUpToDate(file: VirtualFile, resolved: ResolvedSchemas): Boolean {
+        if (resolved.contentStamp != -1L && resolved.contentStamp != getContentStamp(file)) {
+            return false
+        }
+
+        if (resolved.structureStamp != -1L
+                && resolved.structureStamp != VirtualFileManager.getInstance().structureModificationCount) {
+            return false
+        }
+
+        return resolved.schemas.all { it.isValid }
+    }
+
+    /**
+     * Drops the schemas resolved for the moved or renamed [file] and the files inside it, whose mappings may have
+     * changed with their paths, and all the resolved schemas if it's or contains a schema file of a provider.
+     */
+    private fun fileMoved(file: VirtualFile) {
+        if (!file.isDirectory) {
+            myResolutions.remove(file)
+        } else {
+            myResolutions.keys.removeIf { VfsUtilCore.isAncestor(file, it, false) }
+        }
+
+        if (myState.isComputed && myState.files.any { VfsUtilCore.isAncestor(file, it, false) }) {
+            myMovedSchemasCount.incrementAndGet()
+        }
+    }
+
+    private fun computeSchemasForFile(file: VirtualFile, single: Boolean, onlyUserSchemas: Boolean,
+            dependencies: ResolutionDependencies): Collection<VirtualFile> {
         if (shouldIgnoreFile(file, project)) {
             return emptyList()
         }
@@ -104,7 +207,7 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
             schemaUrl = CirJsonCachedValues.getSchemaUrlFromSchemaProperty(file, project)
 
             if (CirJsonFileResolver.isSchemaUrl(schemaUrl)) {
-                val virtualFile = resolveFromSchemaProperty(schemaUrl, file)
+                val virtualFile = resolveFromSchemaProperty(schemaUrl, file, dependencies)
 
                 if (virtualFile != null) {
                     return Collections.singletonList(virtualFile)
@@ -112,14 +215,19 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
             }
         }
 
-        val providers = getProvidersForFile(file)
+        val providers = getProvidersForFile(file, dependencies)
 
         var checkSchemaProperty = true
 
         if (!onlyUserSchemas && providers.none { it.schemaType == SchemaType.USER_SCHEMA }) {
             schemaUrl = schemaUrl ?: CirJsonCachedValues.getSchemaUrlFromSchemaProperty(file, project)
-            schemaUrl = schemaUrl ?: CirJsonSchemaByCommentProvider.getCommentSchema(file, project)
-            val virtualFile = resolveFromSchemaProperty(schemaUrl, file)
+
+            if (schemaUrl == null) {
+                dependencies.readsContent = true
+                schemaUrl = CirJsonSchemaByCommentProvider.getCommentSchema(file, project)
+            }
+
+            val virtualFile = resolveFromSchemaProperty(schemaUrl, file, dependencies)
 
             if (virtualFile != null) {
                 return Collections.singletonList(virtualFile)
@@ -136,6 +244,8 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
 
                 if (schemaFile != null) {
                     files.add(schemaFile)
+                } else {
+                    dependencies.looksUpMissingFile = true
                 }
             }
 
@@ -154,6 +264,11 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
             }
 
             val schemaFile = getSchemaForProvider(project, selected)
+
+            if (schemaFile == null) {
+                dependencies.looksUpMissingFile = true
+            }
+
             return ContainerUtil.createMaybeSingletonList(schemaFile)
         }
 
@@ -163,7 +278,7 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
 
         if (checkSchemaProperty) {
             schemaUrl = schemaUrl ?: CirJsonCachedValues.getSchemaUrlFromSchemaProperty(file, project)
-            val virtualFile = resolveFromSchemaProperty(schemaUrl, file)
+            val virtualFile = resolveFromSchemaProperty(schemaUrl, file, dependencies)
 
             if (virtualFile != null) {
                 return Collections.singletonList(virtualFile)
@@ -176,11 +291,21 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
             return ContainerUtil.createMaybeSingletonList(schemaFromOtherSources)
         }
 
+        dependencies.readsContent = true
         val psiFile = PsiManager.getInstance(project).findFile(file) ?: return emptyList()
         return ContainerUtil.createMaybeSingletonList(getDynamicSchemaForFile(psiFile))
     }
 
+    private fun getContentStamp(file: VirtualFile): Long {
+        return FileDocumentManager.getInstance().getCachedDocument(file)?.modificationStamp ?: file.modificationStamp
+    }
+
     fun getProvidersForFile(file: VirtualFile): List<CirJsonSchemaFileProvider> {
+        return getProvidersForFile(file, null)
+    }
+
+    private fun getProvidersForFile(file: VirtualFile,
+            dependencies: ResolutionDependencies?): List<CirJsonSchemaFileProvider> {
         val map = myState.myData.value
 
         if (map.isEmpty()) {
@@ -189,28 +314,33 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
 
         var result: SmartList<CirJsonSchemaFileProvider>? = null
 
-        for (providers in map.values) {
-            for (provider in providers) {
-                if (isProviderAvailable(file, provider)) {
-                    if (result == null) {
-                        result = SmartList()
-                    }
+        for (provider in myState.myIndex.value.getCandidates(file)) {
+            if (dependencies != null && provider.javaClass.classLoader !== PLUGIN_CLASS_LOADER) {
+                dependencies.asksOtherPlugins = true
+            }
 
-                    result.add(provider)
+            if (isProviderAvailable(file, provider)) {
+                if (result == null) {
+                    result = SmartList()
                 }
+
+                result.add(provider)
             }
         }
 
         return result ?: emptyList()
     }
 
-    private fun resolveFromSchemaProperty(schemaUrl: String?, file: VirtualFile): VirtualFile? {
+    private fun resolveFromSchemaProperty(schemaUrl: String?, file: VirtualFile,
+            dependencies: ResolutionDependencies): VirtualFile? {
         if (schemaUrl != null) {
             val virtualFile = findSchemaFileByReference(schemaUrl, file)
 
             if (virtualFile != null) {
                 return virtualFile
             }
+
+            dependencies.looksUpMissingFile = true
         }
 
         return null
@@ -229,6 +359,12 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
         return isMappedSchema(file, true)
     }
 
+    /**
+     * Schema files of all the providers, including the ones of the user mappings.
+     */
+    val providerSchemaFiles: Set<VirtualFile>
+        get() = myState.files
+
     fun isMappedSchema(file: VirtualFile, canRecompute: Boolean): Boolean {
         return (canRecompute || myState.isComputed) && file in myState.files
     }
@@ -489,12 +625,57 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
         return false
     }
 
+    /**
+     * Schemas resolved for a file, for each combination of the arguments of [getSchemasForFile], valid as long as the
+     * `${'$'}schema` property of the file and the [stamps] of the mappings, providers, catalog and moves of schema
+     * files don't change.
+     */
+    private class FileResolution(val schemaUrl: String?, val stamps: LongArray) {
+
+        val variants = AtomicReferenceArray<ResolvedSchemas?>(4)
+
+    }
+
+    /**
+     * @param contentStamp stamp of the content of the file the schemas were resolved with, or -1 if they don't depend
+     * on the content besides the `${'$'}schema` property
+     * @param structureStamp structure modification count of the VFS the schemas were resolved with, or -1 if they
+     * don't depend on a missing file
+     */
+    private class ResolvedSchemas(val schemas: Collection<VirtualFile>, val contentStamp: Long,
+            val structureStamp: Long)
+
+    /**
+     * What the schemas resolved for a file depend on, besides the path of the file and the stamps of [FileResolution].
+     */
+    private class ResolutionDependencies {
+
+        /**
+         * Whether the content of the file was read, for a schema comment or a content-aware provider.
+         */
+        var readsContent = false
+
+        /**
+         * Whether a schema file wasn't found, so that creating it may change the result.
+         */
+        var looksUpMissingFile = false
+
+        /**
+         * Whether a provider of another plugin was asked, which may decide from anything.
+         */
+        var asksOtherPlugins = false
+
+    }
+
     private class MyState(project: Project, factory: () -> List<CirJsonSchemaFileProvider>) {
 
         val myData = SynchronizedClearableLazy { createFileProviderMap(factory.invoke(), project) }
 
+        val myIndex = SynchronizedClearableLazy { CirJsonSchemaProviderIndex(project, myData.value.values.flatten()) }
+
         fun reset() {
             myData.drop()
+            myIndex.drop()
         }
 
         fun processProviders(consumer: Consumer<CirJsonSchemaFileProvider>) {
@@ -649,6 +830,11 @@ open class CirJsonSchemaServiceImpl(final override val project: Project) : CirJs
 
         private val LOG = Logger.getInstance(CirJsonSchemaServiceImpl::class.java)
 
+        /**
+         * The class loader of the plugin, to tell the providers of other plugins apart.
+         */
+        private val PLUGIN_CLASS_LOADER = CirJsonSchemaServiceImpl::class.java.classLoader
+
         private fun shouldIgnoreFile(file: VirtualFile, project: Project): Boolean {
             return CirJsonSchemaMappingsProjectConfiguration.getInstance(project).isIgnoredFile(file)
         }
@@ -0,0 +1,216 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.components.service
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Key
+import com.intellij.psi.*
+import org.cirjson.plugin.idea.psi.CirJsonContainer
+import org.cirjson.plugin.idea.psi.CirJsonFile
+import org.cirjson.plugin.idea.schema.CirJsonDependencyModificationTracker
+import org.cirjson.plugin.idea.schema.CirJsonSchemaVfsListener
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
+import java.lang.ref.WeakReference
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The results of checking CirJSON objects and arrays against schemas, kept across inspection runs, so that an edit
+ * only revalidates the containers on the path from the edited element to the root of the file. The results of the
+ * other containers are reused as long as nothing changes inside them.
+ *
+ * The last result of each element is kept in its user data, with the schema object and options it was checked with. The
+ * schema is only weakly referenced so that the results don't keep schemas that have been read again, and a result for
+ * another schema or other options is a miss. Any change of the PSI of a CirJSON file drops the results of the changed
+ * element and of all its ancestors. Changes of schema files, of the dependencies between schemas and of the names and
+ * types of files drop all the results.
+ *
+ * A result only holds the errors found for its own value, and refers to the results of the nested values it reused
+ * for the rest, so that each error is kept once however deep its value is.
+ */
+@Service(Service.Level.PROJECT)
+class CirJsonSchemaValidationCache(private val myProject: Project) : Disposable {
+
+    private val myModificationCount = AtomicLong()
+
+    init {
+        PsiManager.getInstance(myProject).addPsiTreeChangeListener(MyPsiTreeChangeListener(), this)
+        myProject.messageBus.connect(this).apply {
+            subscribe(CirJsonSchemaVfsListener.CIRJSON_SCHEMA_CHANGED, Runnable { clear() })
+            subscribe(CirJsonSchemaVfsListener.CIRJSON_DEPS_CHANGED, Runnable { clear() })
+        }
+    }
+
+    /**
+     * Returns the result of checking the [value] against the [schema] with the given [options], if it has been
+     * computed since the value last changed.
+     */
+    fun getResult(value: CirJsonValueAdapter, schema: CirJsonSchemaObject,
+            options: CirJsonComplianceCheckerOptions): Result? {
+        val element = getCacheableElement(value) ?: return null
+        val cached = element.getUserData(RESULT_KEY) ?: return null
+
+        if (cached.stamp != getStamp() || cached.optionsKey != getOptionsKey(options)
+                || cached.schema.get() !== schema) {
+            return null
+        }
+
+        return cached.result
+    }
+
+    /**
+     * Remembers the [result] of checking the [value] against the [schema] with the given [options]. The value must
+     * have been checked completely, without running out of budget.
+     */
+    fun putResult(value: CirJsonValueAdapter, schema: CirJsonSchemaObject, options: CirJsonComplianceCheckerOptions,
+            result: Result) {
+        val element = getCacheableElement(value) ?: return
+        element.putUserData(RESULT_KEY, CachedResult(WeakReference(schema), getOptionsKey(options), getStamp(), result))
+    }
+
+    /**
+     * Drops all the results, for changes that may change how any value is validated, like changes of the mappings.
+     */
+    fun clear() {
+        myModificationCount.incrementAndGet()
+    }
+
+    private fun getStamp(): Long {
+        return myModificationCount.get() + CirJsonDependencyModificationTracker.forProject(myProject).modificationCount
+    }
+
+    override fun dispose() {
+        // the results left in the user data of the PSI are never reused after this, and go with the PSI
+        clear()
+    }
+
+    /**
+     * The result of checking a value.
+     *
+     * @param ownErrors the errors found while checking the value, other than those of the [nested] results
+     * @param nested the results of the nested values reused while checking the value, in the order they were reused
+     */
+    class Result(private val ownErrors: Map<PsiElement, CirJsonValidationError>, private val nested: List<Result>,
+            val hadTypeError: Boolean) {
+
+        /**
+         * Returns all the errors of the check, those of the nested results included.
+         */
+        val errors: Map<PsiElement, CirJsonValidationError>
+            get() {
+                if (nested.isEmpty()) {
+                    return ownErrors
+                }
+
+                val result = HashMap<PsiElement, CirJsonValidationError>()
+                collectErrors(result)
+                return result
+            }
+
+        private fun collectErrors(result: MutableMap<PsiElement, CirJsonValidationError>) {
+            for (nestedResult in nested) {
+                nestedResult.collectErrors(result)
+            }
+
+            result.putAll(ownErrors)
+        }
+
+    }
+
+    private class CachedResult(val schema: WeakReference<CirJsonSchemaObject>, val optionsKey: Int, val stamp: Long,
+            val result: Result)
+
+    private inner class MyPsiTreeChangeListener : PsiTreeChangeAdapter() {
+
+        override fun childAdded(event: PsiTreeChangeEvent) {
+            invalidate(event, event.parent)
+        }
+
+        override fun childRemoved(event: PsiTreeChangeEvent) {
+            invalidate(event, event.parent)
+        }
+
+        override fun childReplaced(event: PsiTreeChangeEvent) {
+            invalidate(event, event.parent)
+        }
+
+        override fun childrenChanged(event: PsiTreeChangeEvent) {
+            invalidate(event, event.parent)
+        }
+
+        override fun childMoved(event: PsiTreeChangeEvent) {
+            invalidate(event, event.oldParent)
+            invalidate(event, event.newParent)
+        }
+
+        override fun propertyChanged(event: PsiTreeChangeEvent) {
+            // the name and type of a file or the name of a directory may change the schemas mapped to the files
+            if (event.propertyName in MAPPING_PROPERTIES) {
+                myModificationCount.incrementAndGet()
+            }
+        }
+
+        /**
+         * Drops the results of the [element] and of its ancestors, for the changes of CirJSON files.
+         */
+        private fun invalidate(event: PsiTreeChangeEvent, element: PsiElement?) {
+            if (event.file !is CirJsonFile) {
+                return
+            }
+
+            var current = element
+
+            while (current != null && current !is PsiFileSystemItem) {
+                current.putUserData(RESULT_KEY, null)
+                current = current.parent
+            }
+        }
+
+    }
+
+    companion object {
+
+        private val RESULT_KEY = Key.create<CachedResult>("CirJsonSchemaValidationCache.RESULT")
+
+        private val MAPPING_PROPERTIES = setOf(PsiTreeChangeEvent.PROP_FILE_NAME, PsiTreeChangeEvent.PROP_FILE_TYPES,
+                PsiTreeChangeEvent.PROP_DIRECTORY_NAME)
+
+        fun getInstance(project: Project): CirJsonSchemaValidationCache {
+            return project.service()
+        }
+
+        /**
+         * Returns the element the results of checking the [value] can be kept on. Only CirJSON containers of physical
+         * files are cached, since only their changes are reported to the listener.
+         */
+        private fun getCacheableElement(value: CirJsonValueAdapter): PsiElement? {
+            val element = value.delegate
+
+            if (element !is CirJsonContainer || !element.isPhysical || !element.isValid) {
+                return null
+            }
+
+            return element
+        }
+
+        private fun getOptionsKey(options: CirJsonComplianceCheckerOptions): Int {
+            var key = 0
+
+            if (options.isCaseInsensitiveEnumCheck) {
+                key = key or 1
+            }
+
+            if (options.isForceStrict) {
+                key = key or 2
+            }
+
+            if (options.isReportMissingOptionalProperties) {
+                key = key or 4
+            }
+
+            return key
+        }
+
+    }
+
+}
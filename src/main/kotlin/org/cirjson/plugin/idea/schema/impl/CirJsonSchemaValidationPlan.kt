@@ -0,0 +1,158 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.project.Project
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaValidation
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
+import org.cirjson.plugin.idea.schema.impl.validations.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Validation plan of a single [CirJsonSchemaObject], compiled once and shared by every value checked against it. The
+ * plan holds the resolved variants of the schema at its root, so that e.g. the items of a large array sharing one
+ * `items` schema do not build the same variants tree again and again, and the list of validations to run for each kind
+ * of value.
+ *
+ * Plans are obtained with [CirJsonSchemaCacheManager.getValidationPlan] and are dropped whenever the references between
+ * schemas may have changed.
+ */
+class CirJsonSchemaValidationPlan(private val myProject: Project, private val mySchema: CirJsonSchemaObject,
+        val modificationCount: Long) {
+
+    private val myValidations = ConcurrentHashMap<Int, Array<CirJsonSchemaValidation>>()
+
+    /**
+     * Same as `CirJsonSchemaResolver(project, schema).detailedResolve()`, computed only once. Threads racing on the
+     * first access may each resolve the schema, but they don't wait on each other.
+     */
+    val matchResult: MatchResult by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        CirJsonSchemaResolver(myProject, mySchema).detailedResolve()
+    }
+
+    /**
+     * Returns the validations to run for the [value] of the given [type], in the order they should be run.
+     */
+    fun getValidations(type: CirJsonSchemaType?, value: CirJsonValueAdapter): Array<CirJsonSchemaValidation> {
+        return myValidations.computeIfAbsent(getValueKind(type, value)) { compile(type, value) }
+    }
+
+    private fun compile(type: CirJsonSchemaType?, value: CirJsonValueAdapter): Array<CirJsonSchemaValidation> {
+        val validations = LinkedHashSet<CirJsonSchemaValidation>()
+        validations.add(EnumValidation.INSTANCE)
+
+        if (type != null) {
+            validations.add(TypeValidation.INSTANCE)
+
+            when (type) {
+                CirJsonSchemaType._string_number -> {
+                    validations.add(NumericValidation.INSTANCE)
+                    validations.add(StringValidation.INSTANCE)
+                }
+
+                CirJsonSchemaType._number, CirJsonSchemaType._integer -> {
+                    validations.add(NumericValidation.INSTANCE)
+                }
+
+                CirJsonSchemaType._string -> {
+                    validations.add(StringValidation.INSTANCE)
+                }
+
+                CirJsonSchemaType._array -> {
+                    validations.add(ArrayValidation.INSTANCE)
+                }
+
+                CirJsonSchemaType._object -> {
+                    validations.add(ObjectValidation.INSTANCE)
+                }
+
+                else -> {}
+            }
+        }
+
+        if (!value.shouldBeIgnored) {
+            if (mySchema.hasNumericChecks && value.isNumberLiteral) {
+                validations.add(NumericValidation.INSTANCE)
+            }
+
+            if (mySchema.hasStringChecks && value.isStringLiteral) {
+                validations.add(StringValidation.INSTANCE)
+            }
+
+            if (mySchema.hasArrayChecks && value.isArray) {
+                validations.add(ArrayValidation.INSTANCE)
+            }
+
+            if (mySchema.minLength != null || mySchema.maxLength != null) {
+                if (value.isStringLiteral) {
+                    validations.add(StringValidation.INSTANCE)
+                }
+
+                if (value.isArray) {
+                    validations.add(ArrayValidation.INSTANCE)
+                }
+            }
+
+            if (mySchema.hasObjectChecks && value.isObject) {
+                validations.add(ObjectValidation.INSTANCE)
+            }
+        }
+
+        if (mySchema.not != null) {
+            validations.add(NotValidation.INSTANCE)
+        }
+
+        if (mySchema.ifThenElse != null) {
+            validations.add(IfThenElseValidation.INSTANCE)
+        }
+
+        return validations.toTypedArray()
+    }
+
+    companion object {
+
+        private const val IGNORED = 1
+
+        private const val NUMBER_LITERAL = 2
+
+        private const val STRING_LITERAL = 4
+
+        private const val ARRAY = 8
+
+        private const val OBJECT = 16
+
+        private const val KIND_BITS = 5
+
+        /**
+         * Returns the key of everything [compile] looks at in the value, so that values of the same kind share the list
+         * of validations.
+         */
+        private fun getValueKind(type: CirJsonSchemaType?, value: CirJsonValueAdapter): Int {
+            val flags = if (value.shouldBeIgnored) {
+                IGNORED
+            } else {
+                var result = 0
+
+                if (value.isNumberLiteral) {
+                    result = result or NUMBER_LITERAL
+                }
+
+                if (value.isStringLiteral) {
+                    result = result or STRING_LITERAL
+                }
+
+                if (value.isArray) {
+                    result = result or ARRAY
+                }
+
+                if (value.isObject) {
+                    result = result or OBJECT
+                }
+
+                result
+            }
+
+            return ((type?.ordinal ?: -1) + 1 shl KIND_BITS) or flags
+        }
+
+    }
+
+}
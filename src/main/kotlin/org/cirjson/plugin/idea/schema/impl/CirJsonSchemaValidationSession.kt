@@ -0,0 +1,111 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.psi.PsiElement
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * State shared by the checkers of one validation pass. It remembers the results of checking values against the
+ * alternatives of `oneOf` and `anyOf`, so that nested alternatives are not validated again for every enclosing
+ * alternative, and it limits the number of alternatives a single check may validate.
+ *
+ * The limit is read from the `cirjson.schema.branch.budget` registry key. Once it is exhausted, the remaining
+ * alternatives are not validated and no errors are reported for them. The session remembers the first value whose
+ * alternatives were left unchecked, so that the truncation can be reported.
+ */
+class CirJsonSchemaValidationSession private constructor(
+        private val myBranchResults: ConcurrentMap<BranchKey, CirJsonSchemaAnnotatorChecker>) {
+
+    constructor() : this(ConcurrentHashMap())
+
+    /**
+     * The number of alternatives a check may validate.
+     */
+    val budget = Registry.intValue(BRANCH_BUDGET_REGISTRY_KEY, DEFAULT_BRANCH_BUDGET)
+
+    private val myBranchesLeft = AtomicInteger(budget)
+
+    private val myTruncatedElement = AtomicReference<PsiElement?>()
+
+    val isBudgetExceeded: Boolean
+        get() = myTruncatedElement.get() != null
+
+    /**
+     * The first value whose alternatives were left unchecked because the budget was exhausted, or `null` if it wasn't.
+     */
+    val truncatedElement: PsiElement?
+        get() = myTruncatedElement.get()
+
+    /**
+     * Returns a session sharing the remembered results of this one, but with its own budget.
+     */
+    fun withNewBudget(): CirJsonSchemaValidationSession {
+        return CirJsonSchemaValidationSession(myBranchResults)
+    }
+
+    /**
+     * Returns the checker of the [value] against the alternative [schema], running [check] only if the pair was not
+     * checked in this session yet. Returns `null` if the budget is exhausted.
+     */
+    fun checkBranch(value: PsiElement, schema: CirJsonSchemaObject, options: CirJsonComplianceCheckerOptions,
+            check: () -> CirJsonSchemaAnnotatorChecker): CirJsonSchemaAnnotatorChecker? {
+        val key = BranchKey(value, schema, options)
+        val cached = myBranchResults[key]
+
+        if (cached != null) {
+            return cached
+        }
+
+        if (myBranchesLeft.decrementAndGet() < 0) {
+            myTruncatedElement.compareAndSet(null, value)
+            return null
+        }
+
+        val checker = check()
+
+        // a check cut short by the budget may miss errors, so it must not be reused by other checks
+        if (!isBudgetExceeded) {
+            myBranchResults[key] = checker
+        }
+
+        return checker
+    }
+
+    /**
+     * Identifies a check of an element against a schema. Both are compared by identity, since the schema objects are
+     * shared, and equality of schemas is much more expensive than the check itself.
+     */
+    private class BranchKey(private val myElement: PsiElement, private val mySchema: CirJsonSchemaObject,
+            options: CirJsonComplianceCheckerOptions) {
+
+        private val myCaseInsensitiveEnumCheck = options.isCaseInsensitiveEnumCheck
+
+        private val myForceStrict = options.isForceStrict
+
+        private val myReportMissingOptionalProperties = options.isReportMissingOptionalProperties
+
+        override fun equals(other: Any?): Boolean {
+            return other is BranchKey && myElement === other.myElement && mySchema === other.mySchema
+                    && myCaseInsensitiveEnumCheck == other.myCaseInsensitiveEnumCheck
+                    && myForceStrict == other.myForceStrict
+                    && myReportMissingOptionalProperties == other.myReportMissingOptionalProperties
+        }
+
+        override fun hashCode(): Int {
+            return 31 * System.identityHashCode(myElement) + System.identityHashCode(mySchema)
+        }
+
+    }
+
+    companion object {
+
+        const val BRANCH_BUDGET_REGISTRY_KEY = "cirjson.schema.branch.budget"
+
+        private const val DEFAULT_BRANCH_BUDGET = 2000
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.components.service
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.progress.Task
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.startup.ProjectActivity
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.util.concurrency.AppExecutorUtil
+import com.intellij.util.indexing.FileBasedIndex
+import org.cirjson.plugin.idea.CirJsonBundle
+import org.cirjson.plugin.idea.schema.CirJsonSchemaService
+import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
+import java.util.concurrent.Callable
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Reads the schemas used in the project in the background once it's opened, so that the first highlighting, completion
+ * or widget update of a file doesn't wait for its schema to be read and resolved.
+ *
+ * Schemas are collected from the providers, which include the user mappings, and from the `$schema` properties of the
+ * indexed files. They are read when indexing is done, in cancellable read actions on a bounded pool. Remote schemas are
+ * skipped, and the references of the schemas that are read are left to be resolved on first use, since they may point
+ * to remote schemas, so that opening a project doesn't download anything.
+ */
+class CirJsonSchemaWarmUpActivity : ProjectActivity {
+
+    override suspend fun execute(project: Project) {
+        if (ApplicationManager.getApplication().isUnitTestMode) {
+            return
+        }
+
+        scheduleWarmUp(project)
+    }
+
+    @Suppress("CompanionObjectInExtension")
+    companion object {
+
+        const val WARM_UP_REGISTRY_KEY = "cirjson.schema.warm.up"
+
+        private const val MAX_THREADS = 2
+
+        private val LOG = Logger.getInstance(CirJsonSchemaWarmUpActivity::class.java)
+
+        private val EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("CirJSON Schema Warm-up",
+                MAX_THREADS)
+
+        /**
+         * Schedules reading the schemas of the [project] once indexing is done, unless it's disabled by the
+         * [WARM_UP_REGISTRY_KEY] registry key. Returns whether it was scheduled.
+         */
+        internal fun scheduleWarmUp(project: Project): Boolean {
+            if (!Registry.`is`(WARM_UP_REGISTRY_KEY, true)) {
+                return false
+            }
+
+            DumbService.getInstance(project).runWhenSmart {
+                if (!project.isDisposed) {
+                    object : Task.Backgroundable(project, CirJsonBundle.message("schema.warm.up.progress.title"),
+                            true) {
+
+                        override fun run(indicator: ProgressIndicator) {
+                            warmUp(project, indicator)
+                        }
+
+                    }.queue()
+                }
+            }
+
+            return true
+        }
+
+        internal fun warmUp(project: Project, indicator: ProgressIndicator) {
+            val cacheManager = project.service<CirJsonSchemaCacheManager>()
+
+            indicator.isIndeterminate = true
+            indicator.text = CirJsonBundle.message("schema.warm.up.progress.collecting")
+
+            val files = ReadAction.nonBlocking(Callable { collectSchemaFiles(project) }).inSmartMode(project)
+                    .expireWith(cacheManager).wrapProgress(indicator).executeSynchronously()
+
+            if (files.isEmpty()) {
+                return
+            }
+
+            indicator.isIndeterminate = false
+            indicator.text = CirJsonBundle.message("schema.warm.up.progress.title")
+
+            val processed = AtomicInteger()
+            val promises = files.map { file ->
+                ReadAction.nonBlocking(Callable { readSchema(project, file) }).inSmartMode(project)
+                        .expireWith(cacheManager).wrapProgress(indicator).submit(EXECUTOR).onProcessed {
+                            indicator.fraction = processed.incrementAndGet().toDouble() / files.size
+                        }
+            }
+
+            try {
+                for (promise in promises) {
+                    try {
+                        ProgressIndicatorUtils.awaitWithCheckCanceled(promise, indicator)
+                    } catch (e: ProcessCanceledException) {
+                        throw e
+                    } catch (e: Exception) {
+                        LOG.debug(e)
+                    }
+                }
+            } finally {
+                promises.forEach { it.cancel() }
+            }
+        }
+
+        internal fun collectSchemaFiles(project: Project): List<VirtualFile> {
+            val service = CirJsonSchemaService.get(project)
+            val files = LinkedHashSet<VirtualFile>()
+
+            if (service is CirJsonSchemaServiceImpl) {
+                files.addAll(service.providerSchemaFiles)
+            }
+
+            val references = HashSet<Pair<String, VirtualFile?>>()
+            val processor = FileBasedIndex.ValueProcessor<String> { file, value ->
+                ProgressManager.checkCanceled()
+
+                if (value != CirJsonSchemaFileValuesIndex.NULL && references.add(value to file.parent)) {
+                    service.findSchemaFileByReference(value, file)?.let { files.add(it) }
+                }
+
+                true
+            }
+
+            FileBasedIndex.getInstance().processValues(CirJsonSchemaFileValuesIndex.INDEX_ID,
+                    CirJsonCachedValues.URL_CACHE_KEY, null, processor, GlobalSearchScope.projectScope(project))
+
+            return files.filter { it.isValid && !CirJsonFileResolver.isHttpPath(it.url) }
+        }
+
+        /**
+         * Reads the schema of the [file], without resolving its references.
+         */
+        private fun readSchema(project: Project, file: VirtualFile) {
+            if (file.isValid) {
+                CirJsonSchemaService.get(project).getSchemaObjectForSchemaFile(file)
+            }
+        }
+
+    }
+
+}
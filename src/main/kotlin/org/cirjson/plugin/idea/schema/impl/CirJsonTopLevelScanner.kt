@@ -0,0 +1,213 @@
+package org.cirjson.plugin.idea.schema.impl
+
+import com.intellij.util.text.CharArrayUtil
+
+/**
+ * Reads string values of properties of the root object directly from the file content, without a lexer and without
+ * copying the content. Nested objects and arrays are skipped by counting brackets, and scanning stops at the end of the
+ * root object or as soon as all the requested properties are found.
+ *
+ * Property names may be double-quoted, single-quoted or unquoted. Values are returned without their quotes and are not
+ * unescaped.
+ */
+class CirJsonTopLevelScanner(private val myText: CharSequence) {
+
+    private val myLength = myText.length
+
+    /**
+     * Returns the values of the first string-valued occurrence of each of the [names] in the root object.
+     */
+    fun readStringProperties(vararg names: String): Map<String, String> {
+        val result = HashMap<String, String>()
+        var pos = skipTrivia(0)
+
+        if (pos >= myLength || myText[pos] != '{') {
+            return result
+        }
+
+        pos++
+
+        while (result.size < names.size) {
+            pos = skipTrivia(pos)
+
+            if (pos >= myLength) {
+                break
+            }
+
+            val c = myText[pos]
+
+            if (c == '}') {
+                break
+            } else if (c == '{' || c == '[') {
+                pos = skipContainer(pos)
+                continue
+            } else if (c == ',' || c == ':') {
+                pos++
+                continue
+            }
+
+            val tokenStart = pos
+            pos = if (c == '"' || c == '\'') skipString(pos) else skipWord(pos)
+            val name = findName(names, tokenStart, pos)
+
+            if (name == null || name in result) {
+                continue
+            }
+
+            var valueStart = skipTrivia(pos)
+
+            if (valueStart >= myLength || myText[valueStart] != ':') {
+                continue
+            }
+
+            valueStart = skipTrivia(valueStart + 1)
+
+            if (valueStart < myLength && (myText[valueStart] == '"' || myText[valueStart] == '\'')) {
+                pos = skipString(valueStart)
+                result[name] = if (pos - valueStart <= 1) "" else myText.substring(valueStart + 1, pos - 1)
+            }
+        }
+
+        return result
+    }
+
+    private fun findName(names: Array<out String>, start: Int, end: Int): String? {
+        var nameStart = start
+        var nameEnd = end
+        val first = myText[start]
+
+        if (first == '"' || first == '\'') {
+            if (end - start < 2 || myText[end - 1] != first) {
+                return null
+            }
+
+            nameStart++
+            nameEnd--
+        }
+
+        for (name in names) {
+            if (name.length == nameEnd - nameStart && CharArrayUtil.regionMatches(myText, nameStart, nameEnd, name)) {
+                return name
+            }
+        }
+
+        return null
+    }
+
+    /**
+     * Skips whitespaces and comments starting at [start].
+     */
+    private fun skipTrivia(start: Int): Int {
+        var pos = start
+
+        while (pos < myLength) {
+            val c = myText[pos]
+
+            if (Character.isWhitespace(c)) {
+                pos++
+            } else if (c == '/' && pos + 1 < myLength && myText[pos + 1] == '/') {
+                pos = CharArrayUtil.shiftForwardUntil(myText, pos, "\n")
+            } else if (c == '/' && pos + 1 < myLength && myText[pos + 1] == '*') {
+                val end = CharArrayUtil.indexOf(myText, "*/", pos + 2)
+                pos = if (end == -1) myLength else end + 2
+            } else {
+                break
+            }
+        }
+
+        return pos
+    }
+
+    /**
+     * Returns the end of the string literal starting at [start]. Same as the lexer, an unterminated literal ends at the
+     * line break.
+     */
+    private fun skipString(start: Int): Int {
+        val quote = myText[start]
+        var pos = start + 1
+
+        while (pos < myLength) {
+            when (myText[pos]) {
+                quote -> return pos + 1
+
+                '\r', '\n' -> return pos
+
+                '\\' -> {
+                    if (pos + 1 >= myLength || myText[pos + 1] == '\r' || myText[pos + 1] == '\n') {
+                        return pos
+                    }
+
+                    pos += 2
+                }
+
+                else -> pos++
+            }
+        }
+
+        return myLength
+    }
+
+    /**
+     * Returns the end of the unquoted name, number or literal starting at [start].
+     */
+    private fun skipWord(start: Int): Int {
+        var pos = start + 1
+
+        while (pos < myLength) {
+            val c = myText[pos]
+
+            if (Character.isWhitespace(c) || c in DELIMITERS) {
+                break
+            }
+
+            pos++
+        }
+
+        return pos
+    }
+
+    /**
+     * Returns the position after the bracket closing the object or array starting at [start], without tokenizing its
+     * contents. Only strings and comments are recognized, so that brackets inside them are not counted.
+     */
+    private fun skipContainer(start: Int): Int {
+        var depth = 0
+        var pos = start
+
+        while (pos < myLength) {
+            when (myText[pos]) {
+                '{', '[' -> {
+                    depth++
+                    pos++
+                }
+
+                '}', ']' -> {
+                    pos++
+
+                    if (--depth == 0) {
+                        return pos
+                    }
+                }
+
+                '"', '\'' -> pos = skipString(pos)
+
+                '/' -> pos = if (pos + 1 < myLength && (myText[pos + 1] == '/' || myText[pos + 1] == '*')) {
+                    skipTrivia(pos)
+                } else {
+                    pos + 1
+                }
+
+                else -> pos++
+            }
+        }
+
+        return myLength
+    }
+
+    companion object {
+
+        private const val DELIMITERS = ",:{}[]\"'"
+
+    }
+
+}
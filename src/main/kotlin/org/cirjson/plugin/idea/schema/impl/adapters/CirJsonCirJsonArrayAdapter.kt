@@ -1,6 +1,10 @@
 package org.cirjson.plugin.idea.schema.impl.adapters
 
+import com.intellij.openapi.util.Key
 import com.intellij.psi.PsiElement
+import com.intellij.psi.util.CachedValue
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
 import org.cirjson.plugin.idea.psi.CirJsonArray
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonArrayValueAdapter
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonObjectValueAdapter
@@ -26,7 +30,25 @@ class CirJsonCirJsonArrayAdapter(private val myArray: CirJsonArray) : CirJsonArr
 
     override val elements: List<CirJsonValueAdapter>
         get() {
-            return myArray.valueList.mapNotNull { CirJsonCirJsonPropertyAdapter.createAdapterByType(it) }
+            return getElements(myArray)
         }
 
+    companion object {
+
+        private val ELEMENTS_KEY =
+                Key.create<CachedValue<List<CirJsonValueAdapter>>>("CirJsonCirJsonArrayAdapter.ELEMENTS")
+
+        /**
+         * The adapters of the elements are shared by all the adapters of the array until the file changes. The provider
+         * only captures the array, as the cached value outlives the adapter asking for it.
+         */
+        private fun getElements(array: CirJsonArray): List<CirJsonValueAdapter> {
+            return CachedValuesManager.getCachedValue(array, ELEMENTS_KEY) {
+                CachedValueProvider.Result.createSingleDependency(
+                        array.valueList.map { CirJsonCirJsonPropertyAdapter.createAdapterByType(it) }, array)
+            }
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package org.cirjson.plugin.idea.schema.impl.adapters
 
+import com.intellij.openapi.util.Key
 import com.intellij.psi.PsiElement
+import com.intellij.psi.util.CachedValue
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
 import org.cirjson.plugin.idea.psi.CirJsonObject
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonArrayValueAdapter
 import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonObjectValueAdapter
@@ -26,7 +30,42 @@ class CirJsonCirJsonObjectAdapter(private val myValue: CirJsonObject) : CirJsonO
 
     override val propertyList: List<CirJsonPropertyAdapter>
         get() {
-            return myValue.propertyList.mapNotNull { CirJsonCirJsonPropertyAdapter(it) }
+            return getProperties(myValue).list
         }
 
+    override fun findProperty(name: String): CirJsonPropertyAdapter? {
+        return getProperties(myValue).byName[name]
+    }
+
+    private class Properties(obj: CirJsonObject) {
+
+        val list: List<CirJsonCirJsonPropertyAdapter> = obj.propertyList.map { CirJsonCirJsonPropertyAdapter(it) }
+
+        val byName = HashMap<String, CirJsonCirJsonPropertyAdapter>(list.size * 2)
+
+        init {
+            for (property in list) {
+                byName.putIfAbsent(property.name, property)
+            }
+        }
+
+    }
+
+    companion object {
+
+        private val PROPERTIES_KEY = Key.create<CachedValue<Properties>>("CirJsonCirJsonObjectAdapter.PROPERTIES")
+
+        /**
+         * The adapters of the properties are shared by all the adapters of the object until the file changes, so that
+         * checking an object against several schemas doesn't create them again for each check. The provider only
+         * captures the object, as the cached value outlives the adapter asking for it.
+         */
+        private fun getProperties(obj: CirJsonObject): Properties {
+            return CachedValuesManager.getCachedValue(obj, PROPERTIES_KEY) {
+                CachedValueProvider.Result.createSingleDependency(Properties(obj), obj)
+            }
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -12,18 +12,14 @@ import java.util.*
 
 class CirJsonCirJsonPropertyAdapter(private val myProperty: CirJsonProperty) : CirJsonPropertyAdapter {
 
-    override val name: String
-        get() = myProperty.name
+    override val name: String = myProperty.name
 
-    override val nameValueAdapter: CirJsonValueAdapter
-        get() = createAdapterByType(myProperty.nameElement)
+    override val nameValueAdapter: CirJsonValueAdapter by lazy { createAdapterByType(myProperty.nameElement) }
 
-    override val values: Collection<CirJsonValueAdapter>
-        get() {
-            val value = myProperty.value ?: return emptyList()
-
-            return Collections.singletonList(createAdapterByType(value))
-        }
+    override val values: Collection<CirJsonValueAdapter> by lazy {
+        val value = myProperty.value ?: return@lazy emptyList<CirJsonValueAdapter>()
+        Collections.singletonList(createAdapterByType(value))
+    }
 
     override val delegate: PsiElement = myProperty
 
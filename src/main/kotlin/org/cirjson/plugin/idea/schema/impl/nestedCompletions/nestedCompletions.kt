@@ -370,7 +370,7 @@ internal fun CirJsonObjectValueAdapter.findChildBy(path: List<String>, offset: I
 }
 
 private fun CirJsonObjectValueAdapter.childByName(name: String): CirJsonValueAdapter? {
-    return propertyList.firstOrNull { it.name == name }?.values?.firstOrNull()
+    return findProperty(name)?.values?.firstOrNull()
 }
 
 
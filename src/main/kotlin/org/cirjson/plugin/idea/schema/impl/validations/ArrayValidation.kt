@@ -1,9 +1,11 @@
 package org.cirjson.plugin.idea.schema.impl.validations
 
+import com.intellij.psi.PsiElement
 import com.intellij.util.containers.MultiMap
 import org.cirjson.plugin.idea.CirJsonBundle
 import org.cirjson.plugin.idea.extentions.intellij.set
 import org.cirjson.plugin.idea.extentions.kotlin.trueOrNull
+import org.cirjson.plugin.idea.psi.CirJsonArray
 import org.cirjson.plugin.idea.schema.extension.CirJsonErrorPriority
 import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
 import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaValidation
@@ -12,6 +14,7 @@ import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
 import org.cirjson.plugin.idea.schema.impl.CirJsonComplianceCheckerOptions
 import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
 import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaType
+import java.util.*
 
 class ArrayValidation private constructor() : CirJsonSchemaValidation {
 
@@ -35,24 +38,12 @@ class ArrayValidation private constructor() : CirJsonSchemaValidation {
                 schema: CirJsonSchemaObject, consumer: CirJsonValidationHost,
                 options: CirJsonComplianceCheckerOptions) {
             if (schema.isUniqueItem) {
-                val valueTexts = MultiMap<String, CirJsonValueAdapter>()
-                val walker = CirJsonLikePsiWalker.getWalker(array.delegate, schema)!!
+                val delegate = array.delegate
 
-                for (adapter in list) {
-                    valueTexts[walker.getNodeTextForValidation(adapter.delegate)] = adapter
-                }
-
-                for (entry in valueTexts.entrySet()) {
-                    if (entry.value.size > 1) {
-                        for (item in entry.value) {
-                            if (!item.shouldCheckAsValue) {
-                                continue
-                            }
-
-                            consumer.error(CirJsonBundle.message("schema.validation.not.unique"), item.delegate,
-                                    CirJsonErrorPriority.TYPE_MISMATCH)
-                        }
-                    }
+                if (delegate is CirJsonArray) {
+                    checkUniqueItems(delegate, list, consumer)
+                } else {
+                    checkUniqueItemsByText(array, list, schema, consumer)
                 }
             }
 
@@ -116,6 +107,60 @@ class ArrayValidation private constructor() : CirJsonSchemaValidation {
             }
         }
 
+        /**
+         * Reports the structurally equal elements of a CirJSON array, compared by [CirJsonStructuralEquality].
+         */
+        private fun checkUniqueItems(array: CirJsonArray, list: List<CirJsonValueAdapter>,
+                consumer: CirJsonValidationHost) {
+            val duplicates = CirJsonStructuralEquality.findDuplicates(array)
+
+            if (duplicates.isEmpty()) {
+                return
+            }
+
+            val adapters = IdentityHashMap<PsiElement, CirJsonValueAdapter>()
+
+            for (adapter in list) {
+                adapters[adapter.delegate] = adapter
+            }
+
+            for (group in duplicates) {
+                for (element in group) {
+                    val item = adapters[element] ?: continue
+
+                    if (!item.shouldCheckAsValue) {
+                        continue
+                    }
+
+                    consumer.error(CirJsonBundle.message("schema.validation.not.unique"), item.delegate,
+                            CirJsonErrorPriority.TYPE_MISMATCH)
+                }
+            }
+        }
+
+        private fun checkUniqueItemsByText(array: CirJsonValueAdapter, list: List<CirJsonValueAdapter>,
+                schema: CirJsonSchemaObject, consumer: CirJsonValidationHost) {
+            val valueTexts = MultiMap<String, CirJsonValueAdapter>()
+            val walker = CirJsonLikePsiWalker.getWalker(array.delegate, schema)!!
+
+            for (adapter in list) {
+                valueTexts[walker.getNodeTextForValidation(adapter.delegate)] = adapter
+            }
+
+            for (entry in valueTexts.entrySet()) {
+                if (entry.value.size > 1) {
+                    for (item in entry.value) {
+                        if (!item.shouldCheckAsValue) {
+                            continue
+                        }
+
+                        consumer.error(CirJsonBundle.message("schema.validation.not.unique"), item.delegate,
+                                CirJsonErrorPriority.TYPE_MISMATCH)
+                    }
+                }
+            }
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package org.cirjson.plugin.idea.schema.impl.validations
+
+import com.intellij.openapi.util.text.StringUtil
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonArrayValueAdapter
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonObjectValueAdapter
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
+import org.cirjson.plugin.idea.schema.impl.EnumArrayValueWrapper
+import org.cirjson.plugin.idea.schema.impl.EnumObjectValueWrapper
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Index of the values of an `enum`, so that checking a value doesn't compare it with each of them.
+ *
+ * Scalar values are kept in hash sets of their text, normalized the way [EnumValidation] compares them: as is, without
+ * quotes, or case-folded. Each set is built on first use. Composite values are grouped by their shape, the size of
+ * arrays and the property names of objects, and only the values of the same shape as the checked value are compared
+ * with it.
+ */
+internal class CirJsonEnumValueIndex(items: List<Any>) {
+
+    private val myScalars = ArrayList<String>()
+
+    private val myArrays = HashMap<Int, MutableList<EnumArrayValueWrapper>>()
+
+    private val myObjectsBySize = HashMap<Int, MutableList<EnumObjectValueWrapper>>()
+
+    private val myObjectsByNames = HashMap<Set<String>, MutableList<EnumObjectValueWrapper>>()
+
+    private val mySets = ConcurrentHashMap<Int, Set<String>>()
+
+    init {
+        for (item in items) {
+            when (item) {
+                is EnumArrayValueWrapper -> myArrays.getOrPut(item.values.size) { ArrayList() }.add(item)
+
+                is EnumObjectValueWrapper -> {
+                    myObjectsBySize.getOrPut(item.values.size) { ArrayList() }.add(item)
+                    myObjectsByNames.getOrPut(item.values.keys) { ArrayList() }.add(item)
+                }
+
+                else -> myScalars.add(item.toString())
+            }
+        }
+    }
+
+    /**
+     * Returns whether one of the scalar values is equal to the [text], compared like
+     * `EnumValidation.checkEnumValue` does for the same options.
+     */
+    fun containsScalar(text: String, ignoreQuotes: Boolean, requireQuotedValues: Boolean,
+            caseInsensitive: Boolean): Boolean {
+        val quotesMode = when {
+            !ignoreQuotes -> 0
+            !requireQuotedValues -> IGNORE_QUOTES
+            StringUtil.isQuotedString(text) -> ONLY_QUOTED
+            else -> ONLY_UNQUOTED
+        }
+
+        val mode = if (caseInsensitive) quotesMode or CASE_INSENSITIVE else quotesMode
+        val key = if (ignoreQuotes) StringUtil.unquoteString(text) else text
+        val set = mySets.computeIfAbsent(mode) { createSet(it) }
+        return (if (caseInsensitive) fold(key) else key) in set
+    }
+
+    /**
+     * Returns the composite values that may be equal to the [adapter], having the same shape.
+     */
+    fun getCompositeCandidates(adapter: CirJsonValueAdapter): List<Any> {
+        if (adapter is CirJsonArrayValueAdapter) {
+            return myArrays[adapter.elements.size] ?: emptyList()
+        }
+
+        if (adapter !is CirJsonObjectValueAdapter || myObjectsBySize.isEmpty()) {
+            return emptyList()
+        }
+
+        val properties = adapter.propertyList
+        val names = HashSet<String>()
+
+        for (property in properties) {
+            names.add(property.name ?: return myObjectsBySize[properties.size] ?: emptyList())
+        }
+
+        // repeated names can't be told apart by the set of names
+        if (names.size != properties.size) {
+            return myObjectsBySize[properties.size] ?: emptyList()
+        }
+
+        return myObjectsByNames[names] ?: emptyList()
+    }
+
+    private fun createSet(mode: Int): Set<String> {
+        val result = HashSet<String>(myScalars.size * 2)
+
+        for (scalar in myScalars) {
+            val key = when {
+                mode and IGNORE_QUOTES != 0 -> StringUtil.unquoteString(scalar)
+
+                mode and ONLY_QUOTED != 0 -> {
+                    if (!StringUtil.isQuotedString(scalar)) {
+                        continue
+                    }
+
+                    StringUtil.unquoteString(scalar)
+                }
+
+                mode and ONLY_UNQUOTED != 0 -> {
+                    if (StringUtil.isQuotedString(scalar)) {
+                        continue
+                    }
+
+                    scalar
+                }
+
+                else -> scalar
+            }
+
+            result.add(if (mode and CASE_INSENSITIVE != 0) fold(key) else key)
+        }
+
+        return result
+    }
+
+    private companion object {
+
+        const val CASE_INSENSITIVE = 1
+
+        const val IGNORE_QUOTES = 2
+
+        const val ONLY_QUOTED = 4
+
+        const val ONLY_UNQUOTED = 8
+
+        /**
+         * Folds the case of each character so that two strings are equal after folding exactly when
+         * `equals(ignoreCase = true)` is true for them.
+         */
+        fun fold(s: String): String {
+            val chars = CharArray(s.length)
+
+            for (i in s.indices) {
+                chars[i] = Character.toLowerCase(Character.toUpperCase(s[i]))
+            }
+
+            return String(chars)
+        }
+
+    }
+
+}
@@ -0,0 +1,290 @@
+package org.cirjson.plugin.idea.schema.impl.validations
+
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.util.ModificationTracker
+import com.intellij.psi.impl.source.tree.CompositeElement
+import com.intellij.psi.util.CachedValue
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
+import org.cirjson.plugin.idea.psi.*
+import java.math.BigDecimal
+
+/**
+ * Structural equality of CirJSON values, as `uniqueItems` defines it: objects are equal when they have the same
+ * properties with equal values in any order, arrays when they have equal elements in the same order, and numbers when
+ * they have the same mathematical value. Whitespace, comments, quotes and escapes don't matter. The `__cirJsonId__`
+ * of objects and arrays does, as it did when values were compared by their text, so that objects and arrays with
+ * different ids are never equal.
+ *
+ * Values are compared by a hash computed bottom-up over the PSI, without building their text, and structurally only
+ * when the hashes are equal. The hashes of objects and arrays are cached on them until they change inside.
+ */
+internal object CirJsonStructuralEquality {
+
+    private val DUPLICATES_KEY = Key.create<CachedValue<List<List<CirJsonValue>>>>("CirJsonStructuralDuplicates")
+
+    private val HASH_KEY = Key.create<CachedValue<Long>>("CirJsonStructuralHash")
+
+    private const val NULL_HASH = 0x3C6EF372FE94F82AL
+
+    private const val TRUE_HASH = 0x5BE0CD19137E2179L
+
+    private const val FALSE_HASH = 0x1F83D9ABFB41BD6BL
+
+    private const val STRING_SEED = 0x510E527FADE682D1L
+
+    private const val NUMBER_SEED = 0x6A09E667F3BCC908L
+
+    private const val REFERENCE_SEED = 0x2545F4914F6CDD1DL
+
+    private const val ARRAY_SEED = 0x1B05688C2B3E6C1FL
+
+    private const val OBJECT_SEED = 0x4CF5AD432745937FL
+
+    /**
+     * Returns the groups of structurally equal elements of the [array], in the order of the array, leaving out the
+     * elements that are unique. The result is cached until the array changes.
+     */
+    fun findDuplicates(array: CirJsonArray): List<List<CirJsonValue>> {
+        return CachedValuesManager.getCachedValue(array, DUPLICATES_KEY) {
+            CachedValueProvider.Result.create(computeDuplicates(array), getSubtreeTracker(array))
+        }
+    }
+
+    /**
+     * Returns a tracker of the changes inside the [container], counted by its AST node, so that the values cached on
+     * it are kept while the rest of the file is edited.
+     */
+    private fun getSubtreeTracker(container: CirJsonContainer): ModificationTracker {
+        val node = container.node as CompositeElement
+        return ModificationTracker { node.modificationCount.toLong() }
+    }
+
+    private fun computeDuplicates(array: CirJsonArray): List<List<CirJsonValue>> {
+        val idLiteral = array.idLiteral
+        val byHash = Long2ObjectOpenHashMap<Any>()
+
+        for (value in array.valueList) {
+            if (value === idLiteral) {
+                continue
+            }
+
+            val hash = hash(value)
+            val previous = byHash.get(hash)
+
+            when (previous) {
+                null -> byHash.put(hash, value)
+                is MutableList<*> -> @Suppress("UNCHECKED_CAST") (previous as MutableList<CirJsonValue>).add(value)
+                else -> byHash.put(hash, arrayListOf(previous as CirJsonValue, value))
+            }
+        }
+
+        var result: MutableList<List<CirJsonValue>>? = null
+
+        for (candidates in byHash.values) {
+            if (candidates !is List<*>) {
+                continue
+            }
+
+            @Suppress("UNCHECKED_CAST")
+            for (group in partition(candidates as List<CirJsonValue>)) {
+                result = result ?: arrayListOf()
+                result.add(group)
+            }
+        }
+
+        return result ?: emptyList()
+    }
+
+    /**
+     * Splits values having the same hash into groups of equal values, keeping only the groups of several values.
+     */
+    private fun partition(values: List<CirJsonValue>): List<List<CirJsonValue>> {
+        val groups = ArrayList<MutableList<CirJsonValue>>()
+
+        for (value in values) {
+            val group = groups.firstOrNull { isEqual(it[0], value) }
+
+            if (group != null) {
+                group.add(value)
+            } else {
+                groups.add(arrayListOf(value))
+            }
+        }
+
+        return groups.filter { it.size > 1 }
+    }
+
+    fun hash(value: CirJsonValue?): Long {
+        return when (value) {
+            null, is CirJsonNullLiteral -> NULL_HASH
+            is CirJsonBooleanLiteral -> if (value.value) TRUE_HASH else FALSE_HASH
+            is CirJsonStringLiteral -> mix(STRING_SEED + hash(getContent(value)))
+            is CirJsonNumberLiteral -> mix(NUMBER_SEED + getNumber(value).hashCode())
+            is CirJsonArray -> getCachedHash(value)
+            is CirJsonObject -> getCachedHash(value)
+            else -> mix(REFERENCE_SEED + hash(value.text))
+        }
+    }
+
+    private fun getCachedHash(container: CirJsonContainer): Long {
+        return CachedValuesManager.getCachedValue(container, HASH_KEY) {
+            CachedValueProvider.Result.create(computeHash(container), getSubtreeTracker(container))
+        }
+    }
+
+    private fun computeHash(container: CirJsonContainer): Long {
+        if (container is CirJsonArray) {
+            val idLiteral = container.idLiteral
+            var result = mix(ARRAY_SEED + hashId(idLiteral?.value))
+
+            for (element in container.valueList) {
+                if (element !== idLiteral) {
+                    result = mix(result * 31 + hash(element))
+                }
+            }
+
+            return result
+        }
+
+        val obj = container as CirJsonObject
+        var result = OBJECT_SEED + hashId(obj.id)
+
+        // the sum doesn't depend on the order of the properties
+        for (property in obj.propertyList) {
+            result += mix(hash(property.name) * 31 + hash(property.value))
+        }
+
+        return mix(result)
+    }
+
+    private fun hashId(id: String?): Long {
+        return if (id == null) NULL_HASH else mix(STRING_SEED + hash(id))
+    }
+
+    fun isEqual(first: CirJsonValue?, second: CirJsonValue?): Boolean {
+        if (first === second) {
+            return true
+        }
+
+        return when (first) {
+            null, is CirJsonNullLiteral -> second == null || second is CirJsonNullLiteral
+            is CirJsonBooleanLiteral -> second is CirJsonBooleanLiteral && first.value == second.value
+            is CirJsonStringLiteral -> second is CirJsonStringLiteral && getContent(first).contentEquals(
+                    getContent(second))
+            is CirJsonNumberLiteral -> second is CirJsonNumberLiteral && getNumber(first) == getNumber(second)
+            is CirJsonArray -> second is CirJsonArray && isEqualArray(first, second)
+            is CirJsonObject -> second is CirJsonObject && isEqualObject(first, second)
+            else -> second != null && second.javaClass == first.javaClass && first.textMatches(second)
+        }
+    }
+
+    private fun isEqualArray(first: CirJsonArray, second: CirJsonArray): Boolean {
+        // the first string of an array is left out of its elements, so it's compared here whether it's an id or not
+        if (first.idLiteral?.value != second.idLiteral?.value) {
+            return false
+        }
+
+        val firstValues = getElements(first)
+        val secondValues = getElements(second)
+
+        if (firstValues.size != secondValues.size) {
+            return false
+        }
+
+        for (i in firstValues.indices) {
+            if (!isEqual(firstValues[i], secondValues[i])) {
+                return false
+            }
+        }
+
+        return true
+    }
+
+    private fun isEqualObject(first: CirJsonObject, second: CirJsonObject): Boolean {
+        if (first.id != second.id) {
+            return false
+        }
+
+        val firstProperties = first.propertyList
+        val secondProperties = second.propertyList
+
+        if (firstProperties.size != secondProperties.size) {
+            return false
+        }
+
+        for (property in firstProperties) {
+            val other = second.findProperty(property.name) ?: return false
+
+            if (!isEqual(property.value, other.value)) {
+                return false
+            }
+        }
+
+        return true
+    }
+
+    private fun getElements(array: CirJsonArray): List<CirJsonValue> {
+        val idLiteral = array.idLiteral
+        return array.valueList.filter { it !== idLiteral }
+    }
+
+    /**
+     * Returns the value of the string without copying it when it has no escapes.
+     */
+    private fun getContent(literal: CirJsonStringLiteral): CharSequence {
+        val chars = literal.node.firstChildNode.chars
+        val length = chars.length
+
+        if (length >= 2 && chars[0] == chars[length - 1] && (chars[0] == '"' || chars[0] == '\'')
+                && chars.indexOf('\\') < 0) {
+            return chars.subSequence(1, length - 1)
+        }
+
+        return literal.value
+    }
+
+    /**
+     * Returns the value of the number as a [Long] when it's an integer in range, and as a [BigDecimal] without
+     * trailing zeros otherwise, so that `1`, `1.0` and `1e0` are equal and have the same hash.
+     */
+    private fun getNumber(literal: CirJsonNumberLiteral): Any {
+        val text = literal.text
+        text.toLongOrNull()?.let { return it }
+
+        val decimal = try {
+            BigDecimal(text).stripTrailingZeros()
+        } catch (e: NumberFormatException) {
+            return text
+        }
+
+        return try {
+            decimal.longValueExact()
+        } catch (e: ArithmeticException) {
+            decimal
+        }
+    }
+
+    private fun hash(chars: CharSequence): Long {
+        var result = 0L
+
+        for (i in chars.indices) {
+            result = result * 31 + chars[i].code
+        }
+
+        return result
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreading the bits of combined hashes.
+     */
+    private fun mix(value: Long): Long {
+        var result = value xor (value ushr 33)
+        result *= -0xae502812aa7333L
+        result = result xor (result ushr 33)
+        result *= -0x3b314601e57a13adL
+        return result xor (result ushr 33)
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.cirjson.plugin.idea.schema.impl.validations
 
 import com.intellij.openapi.util.text.StringUtil
+import com.intellij.util.containers.CollectionFactory
 import org.cirjson.plugin.idea.CirJsonBundle
 import org.cirjson.plugin.idea.schema.extension.CirJsonErrorPriority
 import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
@@ -15,23 +16,11 @@ class EnumValidation private constructor() : CirJsonSchemaValidation {
 
     override fun validate(propValue: CirJsonValueAdapter, schema: CirJsonSchemaObject, schemaType: CirJsonSchemaType?,
             consumer: CirJsonValidationHost, options: CirJsonComplianceCheckerOptions) {
-        val enumItems = schema.enum ?: return
-        val walker = CirJsonLikePsiWalker.getWalker(propValue.delegate, schema) ?: return
-        val text = StringUtil.notNullize(walker.getNodeTextForValidation(propValue.delegate))
-        val caseInsensitive = schema.isForceCaseInsensitive
-        val eq: (String, String) -> Boolean = if (caseInsensitive || options.isCaseInsensitiveEnumCheck) {
-            { s1, s2 -> s1.equals(s2, ignoreCase = true) }
-        } else {
-            String::equals
+        if (isEnumValue(propValue, schema, options)) {
+            return
         }
 
-        for (obj in enumItems) {
-            if (checkEnumValue(obj, walker, propValue, text, eq)) {
-                return
-            }
-        }
-
-        consumer.error(CirJsonBundle.message("schema.validation.enum.mismatch", enumItems.joinToString(", ")),
+        consumer.error(CirJsonBundle.message("schema.validation.enum.mismatch", schema.enum!!.joinToString(", ")),
                 propValue.delegate, CirJsonValidationError.FixableIssueKind.NonEnumValue, null,
                 CirJsonErrorPriority.MEDIUM_PRIORITY)
     }
@@ -40,6 +29,51 @@ class EnumValidation private constructor() : CirJsonSchemaValidation {
 
         val INSTANCE = EnumValidation()
 
+        /**
+         * Enums with fewer values are checked by comparing the value with each of them.
+         */
+        private const val MIN_INDEXED_SIZE = 8
+
+        /**
+         * The index of each `enum`, by its list of values. Lists are replaced rather than modified, so an index stays
+         * valid as long as its list is used.
+         */
+        private val ENUM_INDICES = CollectionFactory.createConcurrentWeakIdentityMap<List<Any>, CirJsonEnumValueIndex>()
+
+        /**
+         * Checks that the value is one of the `enum` (or `const`) values of the schema. Returns `true` if the schema
+         * has no such restriction.
+         */
+        fun isEnumValue(propValue: CirJsonValueAdapter, schema: CirJsonSchemaObject,
+                options: CirJsonComplianceCheckerOptions): Boolean {
+            val enumItems = schema.enum ?: return true
+            val walker = CirJsonLikePsiWalker.getWalker(propValue.delegate, schema) ?: return true
+            val text = StringUtil.notNullize(walker.getNodeTextForValidation(propValue.delegate))
+            val caseInsensitive = schema.isForceCaseInsensitive || options.isCaseInsensitiveEnumCheck
+            val eq: (String, String) -> Boolean = if (caseInsensitive) {
+                { s1, s2 -> s1.equals(s2, ignoreCase = true) }
+            } else {
+                String::equals
+            }
+
+            if (enumItems.size < MIN_INDEXED_SIZE) {
+                return enumItems.any { checkEnumValue(it, walker, propValue, text, eq) }
+            }
+
+            if (!propValue.shouldCheckAsValue) {
+                return true
+            }
+
+            val index = ENUM_INDICES.computeIfAbsent(enumItems) { CirJsonEnumValueIndex(it) }
+
+            if (index.containsScalar(text, walker.isAllowingSingleQuotes, walker.isRequiringValueQuote,
+                            caseInsensitive)) {
+                return true
+            }
+
+            return index.getCompositeCandidates(propValue).any { checkEnumValue(it, walker, propValue, text, eq) }
+        }
+
         private fun checkEnumValue(obj: Any, walker: CirJsonLikePsiWalker, adapter: CirJsonValueAdapter?, text: String,
                 stringEq: (String, String) -> Boolean): Boolean {
             if (adapter != null && !adapter.shouldCheckAsValue) {
@@ -85,16 +119,25 @@ class EnumValidation private constructor() : CirJsonSchemaValidation {
                     }
                 }
             } else {
-                return if (!walker.isAllowingSingleQuotes) {
-                    stringEq.invoke(obj.toString(), text)
-                } else {
-                    equalsIgnoreQuotes(obj.toString(), text, walker.isRequiringValueQuote, stringEq)
-                }
+                return isEqualScalar(obj.toString(), text, walker.isAllowingSingleQuotes, walker.isRequiringValueQuote,
+                        stringEq)
             }
 
             return false
         }
 
+        /**
+         * Compares a scalar `enum` value with the text of the checked value, the way [checkEnumValue] does.
+         */
+        internal fun isEqualScalar(enumValue: String, text: String, ignoreQuotes: Boolean,
+                requireQuotedValues: Boolean, stringEq: (String, String) -> Boolean): Boolean {
+            return if (!ignoreQuotes) {
+                stringEq.invoke(enumValue, text)
+            } else {
+                equalsIgnoreQuotes(enumValue, text, requireQuotedValues, stringEq)
+            }
+        }
+
         private fun equalsIgnoreQuotes(s1: String, s2: String, requireQuotedValues: Boolean,
                 eq: (String, String) -> Boolean): Boolean {
             val quoted1 = StringUtil.isQuotedString(s1)
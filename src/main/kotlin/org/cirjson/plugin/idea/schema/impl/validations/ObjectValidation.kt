@@ -2,9 +2,7 @@ package org.cirjson.plugin.idea.schema.impl.validations
 
 import com.intellij.openapi.util.Ref
 import com.intellij.openapi.util.text.StringUtil
-import com.intellij.util.ThreeState
 import org.cirjson.plugin.idea.CirJsonBundle
-import org.cirjson.plugin.idea.pointer.CirJsonPointerPosition
 import org.cirjson.plugin.idea.schema.extension.CirJsonErrorPriority
 import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaValidation
 import org.cirjson.plugin.idea.schema.extension.CirJsonValidationHost
@@ -29,6 +27,7 @@ class ObjectValidation private constructor() : CirJsonSchemaValidation {
             val obj = value.asObject ?: return
 
             val propertyList = obj.propertyList
+            val propertyTable = CirJsonSchemaPropertyTable(schema)
             val set = hashSetOf<String>()
 
             for (property in propertyList) {
@@ -49,17 +48,16 @@ class ObjectValidation private constructor() : CirJsonSchemaValidation {
                     }
                 }
 
-                val step = CirJsonPointerPosition.createSingleProperty(name)
-                val pair = CirJsonSchemaVariantsTreeBuilder.doSingleStep(step, schema, false)
+                val propertySchema = propertyTable.getPropertySchema(name)
 
-                if (pair.first == ThreeState.NO && name !in set) {
+                if (propertySchema != null) {
+                    for (propertyValue in property.values) {
+                        consumer.checkObjectBySchemaRecordErrors(propertySchema, propertyValue)
+                    }
+                } else if (!propertyTable.isAdditionalPropertyAllowed && name !in set) {
                     consumer.error(CirJsonBundle.message("cirjson.schema.annotation.not.allowed.property", name),
                             property.delegate, CirJsonValidationError.FixableIssueKind.ProhibitedProperty,
                             CirJsonValidationError.ProhibitedPropertyIssueData(name), CirJsonErrorPriority.LOW_PRIORITY)
-                } else if (pair.first == ThreeState.UNSURE) {
-                    for (propertyValue in property.values) {
-                        consumer.checkObjectBySchemaRecordErrors(pair.second!!, propertyValue)
-                    }
                 }
 
                 set.add(name)
@@ -136,10 +134,9 @@ class ObjectValidation private constructor() : CirJsonSchemaValidation {
                 return
             }
 
-            val existingProperties = objectValueAdapter.propertyList.map { it.name }
-
             val iter = Iterable { schema.propertyNames.iterator() }
-            val missingProperties = StreamSupport.stream(iter.spliterator(), false).filter { it !in existingProperties }
+            val missingProperties = StreamSupport.stream(iter.spliterator(), false)
+                    .filter { objectValueAdapter.findProperty(it) == null }
                     .collect(Collectors.toSet())
             val missingPropertiesData = createMissingPropertiesData(schema, missingProperties, validationHost)
             validationHost.error(CirJsonBundle.message("schema.validation.missing.not.required.property.or.properties",
@@ -3,6 +3,7 @@ package org.cirjson.plugin.idea.schema.remote
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.application.ReadAction
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.ModificationTracker
 import com.intellij.openapi.roots.ProjectFileIndex
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VfsUtilCore
@@ -16,9 +17,9 @@ import org.cirjson.plugin.idea.schema.CirJsonSchemaCatalogEntry
 import org.cirjson.plugin.idea.schema.CirJsonSchemaCatalogProjectConfiguration
 import org.cirjson.plugin.idea.schema.CirJsonSchemaService
 import org.cirjson.plugin.idea.schema.impl.CirJsonCachedValues
-import java.nio.file.*
+import java.util.concurrent.atomic.AtomicLong
 
-class CirJsonSchemaCatalogManager(private val myProject: Project) {
+class CirJsonSchemaCatalogManager(private val myProject: Project) : ModificationTracker {
 
     private val myRemoteContentProvider = CirJsonSchemaRemoteContentProvider()
 
@@ -30,6 +31,16 @@ class CirJsonSchemaCatalogManager(private val myProject: Project) {
 
     private val myDownloadingAdapters = CollectionFactory.createConcurrentWeakMap<Runnable, FileDownloadingAdapter>()
 
+    private val myModificationCount = AtomicLong()
+
+    private val myCatalogDownloadingAdapter = object : FileDownloadingAdapter() {
+
+        override fun fileDownloaded(file: VirtualFile) {
+            myModificationCount.incrementAndGet()
+        }
+
+    }
+
     fun startUpdates() {
         CirJsonSchemaCatalogProjectConfiguration.getInstance(myProject).addChangeHandler {
             update()
@@ -43,16 +54,36 @@ class CirJsonSchemaCatalogManager(private val myProject: Project) {
 
     private fun update() {
         val application = ApplicationManager.getApplication()
+        (myCatalog as? HttpVirtualFile)?.fileInfo?.removeDownloadingListener(myCatalogDownloadingAdapter)
 
         if (application.isUnitTestMode) {
             myCatalog = myTestSchemaStoreFile
-            return
+        } else {
+            myCatalog = if (CirJsonFileResolver.isRemoteEnabled(myProject)) {
+                CirJsonFileResolver.urlToFile(DEFAULT_CATALOG)
+            } else {
+                null
+            }
+
+            (myCatalog as? HttpVirtualFile)?.fileInfo?.addDownloadingListener(myCatalogDownloadingAdapter)
         }
 
-        myCatalog = if (CirJsonFileResolver.isRemoteEnabled(myProject)) {
-            CirJsonFileResolver.urlToFile(DEFAULT_CATALOG)
-        } else {
-            null
+        myModificationCount.incrementAndGet()
+    }
+
+    /**
+     * Changes whenever the catalog may map files to other schemas: when the catalog is replaced, downloaded or edited.
+     */
+    override fun getModificationCount(): Long {
+        return myModificationCount.get()
+    }
+
+    /**
+     * Called after the content of the [file] changed, to change the modification count if it's the catalog.
+     */
+    fun fileContentChanged(file: VirtualFile) {
+        if (file == myCatalog) {
+            myModificationCount.incrementAndGet()
         }
     }
 
@@ -119,36 +150,6 @@ class CirJsonSchemaCatalogManager(private val myProject: Project) {
         CirJsonFileResolver.startFetchingHttpFileIfNeeded(myCatalog, project)
     }
 
-    private class FileMatcher(val myEntry: CirJsonSchemaCatalogEntry) {
-
-        private var myMatcher: PathMatcher? = null
-
-        fun matches(filePath: Path): Boolean {
-            if (myMatcher == null) {
-                myMatcher = buildPathMatcher(myEntry.fileMasks)
-            }
-
-            return myMatcher!!.matches(filePath)
-        }
-
-        companion object {
-
-            private fun buildPathMatcher(fileMasks: Collection<String>): PathMatcher {
-                val refinedFileMasks = fileMasks.map { StringUtil.trimStart(it, "**/") }
-
-                return if (refinedFileMasks.size == 1) {
-                    FileSystems.getDefault().getPathMatcher("glob:${refinedFileMasks.first()}")
-                } else if (refinedFileMasks.isNotEmpty()) {
-                    FileSystems.getDefault().getPathMatcher("glob{${StringUtil.join(refinedFileMasks, ",")}}")
-                } else {
-                    PathMatcher { false }
-                }
-            }
-
-        }
-
-    }
-
     companion object {
 
         const val DEFAULT_CATALOG: String = "http://cirjson.org/api/catalog.cirjson"
@@ -169,19 +170,17 @@ class CirJsonSchemaCatalogManager(private val myProject: Project) {
         private fun resolveSchemaFile(file: VirtualFile, catalogFile: VirtualFile, project: Project): String? {
             CirJsonFileResolver.startFetchingHttpFileIfNeeded(catalogFile, project)
 
-            val schemaCatalog = CirJsonCachedValues.getSchemaCatalog(catalogFile, project)
+            val matcher = CirJsonCachedValues.getSchemaCatalogMatcher(catalogFile, project)
                     ?: return if (catalogFile is HttpVirtualFile) NO_CACHE else null
 
-            val fileMatchers = ContainerUtil.map(schemaCatalog) { FileMatcher(it) }
-
             val fileRelativePathStr = getRelativePath(file, project)
-            var url = findMatchedUrl(fileMatchers, fileRelativePathStr)
+            var url = fileRelativePathStr?.let { matcher.findUrl(it) }
 
             if (url == null) {
                 val fileName = file.name
 
                 if (fileName != fileRelativePathStr) {
-                    url = findMatchedUrl(fileMatchers, fileName)
+                    url = matcher.findUrl(fileName)
                 }
             }
 
@@ -211,25 +210,6 @@ class CirJsonSchemaCatalogManager(private val myProject: Project) {
             return VfsUtilCore.findRelativePath(contentRoot, file, VfsUtilCore.VFS_SEPARATOR_CHAR)
         }
 
-        private fun findMatchedUrl(matchers: List<FileMatcher>, filePath: String?): String? {
-            filePath ?: return null
-            val path: Path
-
-            try {
-                path = Paths.get(filePath)
-            } catch (_: InvalidPathException) {
-                return null
-            }
-
-            for (matcher in matchers) {
-                if (matcher.matches(path)) {
-                    return matcher.myEntry.url
-                }
-            }
-
-            return null
-        }
-
     }
 
 }
\ No newline at end of file
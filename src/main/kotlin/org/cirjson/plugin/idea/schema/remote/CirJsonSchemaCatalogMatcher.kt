@@ -0,0 +1,392 @@
+package org.cirjson.plugin.idea.schema.remote
+
+import com.intellij.openapi.util.SystemInfo
+import com.intellij.openapi.util.text.StringUtil
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.chars.CharArrayList
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+import org.cirjson.plugin.idea.schema.CirJsonSchemaCatalogEntry
+
+/**
+ * Finds the schema of a file among the entries of a schema catalog. All the file masks of the catalog are compiled
+ * once, so that a lookup doesn't depend on the number of entries:
+ *
+ * * masks without wildcards go into a hash map,
+ * * masks of the form `*suffix`, like `*.cirjson`, go into a trie of reversed suffixes,
+ * * all the other masks are compiled into a single automaton, which is run once over the path.
+ *
+ * Masks have the same syntax as [java.nio.file.FileSystem.getPathMatcher] globs, except that a leading `**` directory
+ * is ignored. When several entries match, the first one in the catalog wins. Masks that are not valid globs never
+ * match.
+ */
+class CirJsonSchemaCatalogMatcher(private val myEntries: List<CirJsonSchemaCatalogEntry>) {
+
+    private val myCaseInsensitive = SystemInfo.isWindows
+
+    private val myLiterals = Object2IntOpenHashMap<String>().apply { defaultReturnValue(Int.MAX_VALUE) }
+
+    private val mySuffixes = SuffixNode()
+
+    private val myGlobs = GlobAutomaton()
+
+    init {
+        for ((index, entry) in myEntries.withIndex()) {
+            for (fileMask in entry.fileMasks) {
+                addMask(normalize(StringUtil.trimStart(fileMask, "**/")), index)
+            }
+        }
+    }
+
+    private fun addMask(mask: String, index: Int) {
+        if (mask.none { it in GLOB_CHARS }) {
+            myLiterals.putIfAbsent(mask, index)
+        } else if (mask.startsWith('*') && mask.drop(1).none { it in GLOB_CHARS || it == '/' }) {
+            mySuffixes.add(mask, index)
+        } else {
+            myGlobs.add(mask, index)
+        }
+    }
+
+    private fun normalize(text: String): String {
+        return if (myCaseInsensitive) StringUtil.toLowerCase(text) else text
+    }
+
+    /**
+     * Returns the URL of the first entry having a mask matching the whole [path], which is either relative to the
+     * project or just a file name.
+     */
+    fun findUrl(path: String): String? {
+        val text = normalize(path)
+        var best = myLiterals.getInt(text)
+
+        if ('/' !in text) {
+            best = minOf(best, mySuffixes.find(text))
+        }
+
+        best = minOf(best, myGlobs.find(text))
+        return if (best == Int.MAX_VALUE) null else myEntries[best].url
+    }
+
+    /**
+     * A node of the trie of `*suffix` masks, keyed by the characters of the suffix from last to first.
+     */
+    private class SuffixNode {
+
+        private val myChildren = Char2ObjectOpenHashMap<SuffixNode>()
+
+        private var myIndex = Int.MAX_VALUE
+
+        fun add(mask: String, index: Int) {
+            var node = this
+
+            for (i in mask.length - 1 downTo 1) {
+                node = node.myChildren.computeIfAbsent(mask[i]) { SuffixNode() }
+            }
+
+            node.myIndex = minOf(node.myIndex, index)
+        }
+
+        fun find(name: String): Int {
+            var node = this
+            var best = myIndex
+
+            for (i in name.length - 1 downTo 0) {
+                node = node.myChildren[name[i]] ?: break
+                best = minOf(best, node.myIndex)
+            }
+
+            return best
+        }
+
+    }
+
+    /**
+     * A nondeterministic automaton for a set of globs. Every glob is expanded into plain sequences of elements (one per
+     * alternative of its `{...}` group), and a sequence of `n` elements takes `n + 1` consecutive states, the last one
+     * being accepting. All the sequences are simulated in parallel, so the path is read only once.
+     */
+    private class GlobAutomaton {
+
+        private val myKinds = IntArrayList()
+
+        private val myChars = CharArrayList()
+
+        private val myClasses = ArrayList<CharClass?>()
+
+        /**
+         * Index of the entry of each accepting state, or -1 for other states.
+         */
+        private val myEntryIndices = IntArrayList()
+
+        private val myStarts = IntArrayList()
+
+        fun add(glob: String, index: Int) {
+            val sequences = try {
+                GlobParser(glob).parse()
+            } catch (_: IllegalArgumentException) {
+                return
+            }
+
+            for (sequence in sequences) {
+                myStarts.add(myKinds.size)
+
+                for (element in sequence) {
+                    myKinds.add(element.kind)
+                    myChars.add(element.char)
+                    myClasses.add(element.charClass)
+                    myEntryIndices.add(-1)
+                }
+
+                myKinds.add(ACCEPT)
+                myChars.add(0.toChar())
+                myClasses.add(null)
+                myEntryIndices.add(index)
+            }
+        }
+
+        fun find(path: String): Int {
+            if (myStarts.isEmpty()) {
+                return Int.MAX_VALUE
+            }
+
+            val marks = IntArray(myKinds.size) { -1 }
+            var current = IntArrayList()
+            var next = IntArrayList()
+
+            for (i in 0..<myStarts.size) {
+                addState(myStarts.getInt(i), current, marks, 0)
+            }
+
+            for (i in path.indices) {
+                val c = path[i]
+
+                for (j in 0..<current.size) {
+                    val state = current.getInt(j)
+
+                    when (myKinds.getInt(state)) {
+                        LITERAL -> if (myChars.getChar(state) == c) addState(state + 1, next, marks, i + 1)
+                        ANY -> if (c != '/') addState(state + 1, next, marks, i + 1)
+                        CLASS -> if (c != '/' && myClasses[state]!!.matches(c)) addState(state + 1, next, marks, i + 1)
+                        STAR -> if (c != '/') addState(state, next, marks, i + 1)
+                        GLOBSTAR -> addState(state, next, marks, i + 1)
+                    }
+                }
+
+                if (next.isEmpty()) {
+                    return Int.MAX_VALUE
+                }
+
+                current.clear()
+                val swap = current
+                current = next
+                next = swap
+            }
+
+            var best = Int.MAX_VALUE
+
+            for (i in 0..<current.size) {
+                val entryIndex = myEntryIndices.getInt(current.getInt(i))
+
+                if (entryIndex >= 0) {
+                    best = minOf(best, entryIndex)
+                }
+            }
+
+            return best
+        }
+
+        /**
+         * Adds the state and the states following the stars it starts with, since stars may match nothing.
+         */
+        private fun addState(state: Int, states: IntArrayList, marks: IntArray, generation: Int) {
+            var current = state
+
+            while (marks[current] != generation) {
+                marks[current] = generation
+                states.add(current)
+
+                val kind = myKinds.getInt(current)
+
+                if (kind != STAR && kind != GLOBSTAR) {
+                    break
+                }
+
+                current++
+            }
+        }
+
+    }
+
+    private class Element(val kind: Int, val char: Char = 0.toChar(), val charClass: CharClass? = null)
+
+    private class CharClass(private val myRanges: CharArray, private val myNegated: Boolean) {
+
+        fun matches(c: Char): Boolean {
+            for (i in myRanges.indices step 2) {
+                if (c in myRanges[i]..myRanges[i + 1]) {
+                    return !myNegated
+                }
+            }
+
+            return myNegated
+        }
+
+    }
+
+    /**
+     * Parses a glob the same way [java.nio.file.FileSystem.getPathMatcher] does, throwing [IllegalArgumentException]
+     * where the latter would throw [java.util.regex.PatternSyntaxException].
+     */
+    private class GlobParser(private val myGlob: String) {
+
+        private var myPos = 0
+
+        fun parse(): List<List<Element>> {
+            var sequences = listOf<List<Element>>(emptyList())
+
+            while (myPos < myGlob.length) {
+                val elements = if (myGlob[myPos] == '{') parseGroup() else listOf(listOf(parseElement()))
+                sequences = sequences.flatMap { prefix -> elements.map { prefix + it } }
+            }
+
+            return sequences
+        }
+
+        private fun parseGroup(): List<List<Element>> {
+            val alternatives = arrayListOf<List<Element>>()
+            var current = arrayListOf<Element>()
+            myPos++
+
+            while (true) {
+                if (myPos >= myGlob.length) {
+                    throw IllegalArgumentException("Missing '}'")
+                }
+
+                when (myGlob[myPos]) {
+                    '{' -> throw IllegalArgumentException("Cannot nest groups")
+
+                    ',' -> {
+                        alternatives.add(current)
+                        current = arrayListOf()
+                        myPos++
+                    }
+
+                    '}' -> {
+                        alternatives.add(current)
+                        myPos++
+                        return alternatives
+                    }
+
+                    else -> current.add(parseElement())
+                }
+            }
+        }
+
+        private fun parseElement(): Element {
+            val c = myGlob[myPos++]
+
+            return when (c) {
+                '\\' -> {
+                    if (myPos >= myGlob.length) {
+                        throw IllegalArgumentException("No character to escape")
+                    }
+
+                    Element(LITERAL, myGlob[myPos++])
+                }
+
+                '*' -> if (myPos < myGlob.length && myGlob[myPos] == '*') {
+                    myPos++
+                    Element(GLOBSTAR)
+                } else {
+                    Element(STAR)
+                }
+
+                '?' -> Element(ANY)
+
+                '[' -> parseClass()
+
+                else -> Element(LITERAL, c)
+            }
+        }
+
+        private fun parseClass(): Element {
+            val ranges = StringBuilder()
+            var negated = false
+            var last = 0.toChar()
+            var hasRangeStart = false
+
+            if (myPos < myGlob.length && myGlob[myPos] == '!') {
+                negated = true
+                myPos++
+            }
+
+            if (myPos < myGlob.length && myGlob[myPos] == '-') {
+                ranges.append('-').append('-')
+                myPos++
+            }
+
+            while (true) {
+                if (myPos >= myGlob.length) {
+                    throw IllegalArgumentException("Missing ']'")
+                }
+
+                val c = myGlob[myPos++]
+
+                if (c == ']') {
+                    break
+                } else if (c == '/') {
+                    throw IllegalArgumentException("Explicit 'name separator' in class")
+                } else if (c == '-') {
+                    if (!hasRangeStart) {
+                        throw IllegalArgumentException("Invalid range")
+                    }
+
+                    if (myPos >= myGlob.length) {
+                        throw IllegalArgumentException("Missing ']'")
+                    }
+
+                    val end = myGlob[myPos++]
+
+                    if (end == ']') {
+                        ranges.append('-').append('-')
+                        break
+                    }
+
+                    if (end < last) {
+                        throw IllegalArgumentException("Invalid range")
+                    }
+
+                    ranges.setCharAt(ranges.length - 1, end)
+                    hasRangeStart = false
+                } else {
+                    ranges.append(c).append(c)
+                    hasRangeStart = true
+                    last = c
+                }
+            }
+
+            return Element(CLASS, charClass = CharClass(ranges.toString().toCharArray(), negated))
+        }
+
+    }
+
+    private companion object {
+
+        const val GLOB_CHARS = "*?[{\\"
+
+        const val LITERAL = 0
+
+        const val ANY = 1
+
+        const val CLASS = 2
+
+        const val STAR = 3
+
+        const val GLOBSTAR = 4
+
+        const val ACCEPT = 5
+
+    }
+
+}
@@ -106,6 +106,7 @@ open class CirJsonSchemaInfoPopupStep(allSchemas: List<CirJsonSchemaInfo>, priva
                         configuration.removeConfiguration(mappingForFile)
                     } else {
                         mappingForFile.refreshPatterns()
+                        configuration.dropIndex()
                     }
 
                     break
@@ -124,6 +125,7 @@ open class CirJsonSchemaInfoPopupStep(allSchemas: List<CirJsonSchemaInfo>, priva
             if (item !in existing.patterns!!) {
                 (existing.patterns as MutableList).add(item)
                 existing.refreshPatterns()
+                configuration.dropIndex()
             }
         } else {
             configuration.addConfiguration(
@@ -0,0 +1,47 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.impl.validations.CirJsonEnumValueIndex
+import org.cirjson.plugin.idea.schema.impl.validations.EnumValidation
+
+class CirJsonEnumValueIndexTest : CirJsonTestCase() {
+
+    fun testSameAsComparingEachValue() {
+        val index = CirJsonEnumValueIndex(ITEMS)
+
+        for (ignoreQuotes in BOOLEANS) {
+            for (requireQuotedValues in BOOLEANS) {
+                for (caseInsensitive in BOOLEANS) {
+                    val eq: (String, String) -> Boolean = if (caseInsensitive) {
+                        { s1, s2 -> s1.equals(s2, ignoreCase = true) }
+                    } else {
+                        String::equals
+                    }
+
+                    for (text in TEXTS) {
+                        val expected = ITEMS.any {
+                            EnumValidation.isEqualScalar(it.toString(), text, ignoreQuotes, requireQuotedValues, eq)
+                        }
+                        val message = "$text, ignoreQuotes=$ignoreQuotes, requireQuotedValues=$requireQuotedValues, " +
+                                "caseInsensitive=$caseInsensitive"
+
+                        assertEquals(message, expected,
+                                index.containsScalar(text, ignoreQuotes, requireQuotedValues, caseInsensitive))
+                    }
+                }
+            }
+        }
+    }
+
+    companion object {
+
+        private val BOOLEANS = listOf(false, true)
+
+        private val ITEMS = listOf<Any>("\"a\"", "\"B\"", "\"σ\"", "\"\"", "null", 1, 2.5, true, false)
+
+        private val TEXTS = listOf("\"a\"", "'a'", "a", "'a\"", "\"A\"", "A", "\"b\"", "'B'", "b", "\"Σ\"", "\"ς\"",
+                "ς", "\"\"", "''", "\"", "null", "\"null\"", "NULL", "1", "\"1\"", "'1'", "2.5", "2.50", "true", "TRUE",
+                "\"true\"", "false", "x", "")
+
+    }
+
+}
\ No newline at end of file
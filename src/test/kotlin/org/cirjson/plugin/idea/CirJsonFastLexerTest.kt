@@ -0,0 +1,84 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.lexer.Lexer
+import java.util.*
+
+/**
+ * Checks that [CirJsonFastLexer] produces exactly the same tokens as the JFlex-generated lexer.
+ */
+class CirJsonFastLexerTest : CirJsonTestCase() {
+
+    fun testSamples() {
+        val samples = listOf(
+                """{"__cirJsonId__": "1", "a": [ "2", 1, -2.5e+3, true, false, null, NaN, -Infinity ]}""",
+                "// line comment\n/* block\ncomment */ /* unterminated *",
+                "/*a*/b //a\u0085b //\uD800x /**/ /*** /",
+                "\"unterminated\n'unterminated\r\"escaped \\\" quote\" 'escaped \\\nbreak' \"\\",
+                "\"__cirJsonId__\"x \"__cirJsonId__ '__cirJsonId__'",
+                "01 1. 1e 1e+ -1 - -- -x Infinityx NaNN trueX nul nullx \$id a~!()*-./@^<>=b",
+                "\t\u000B\u000C\u0085\u00A0\u1680\u2000\u2007\u2028\u2029\u202F\u3000\u001C\u0085x",
+                "\u00E9\u65E5 \uD83D\uDE00 \uD800 \uDC00 + # % ? & | \u0000\u007F\u200B",
+        )
+
+        for (sample in samples) {
+            assertSameTokens(sample)
+        }
+    }
+
+    fun testRandomInputs() {
+        val random = Random(SEED)
+
+        for (i in 0..<10000) {
+            val builder = StringBuilder()
+
+            for (j in 0..<1 + random.nextInt(16)) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.size)])
+            }
+
+            assertSameTokens(builder.toString())
+        }
+    }
+
+    fun testRestartAtTokenBoundaries() {
+        val text = """{"__cirJsonId__": "1", /* c */ "a": ["2", 'b', -1e5, x.y]} // end"""
+        val lexer = CirJsonFastLexer()
+        lexer.start(text)
+
+        while (lexer.tokenType != null) {
+            assertEquals(0, lexer.state)
+            assertEquals(tokens(CirJsonLexer(), text, lexer.tokenStart), tokens(CirJsonFastLexer(), text,
+                    lexer.tokenStart))
+            lexer.advance()
+        }
+    }
+
+    private fun assertSameTokens(text: String) {
+        assertEquals(text, tokens(CirJsonLexer(), text, 0), tokens(CirJsonFastLexer(), text, 0))
+    }
+
+    private fun tokens(lexer: Lexer, text: String, start: Int): String {
+        val builder = StringBuilder()
+        lexer.start(text, start, text.length, 0)
+
+        while (lexer.tokenType != null) {
+            builder.append(lexer.tokenType).append(' ').append(lexer.tokenStart).append('-').append(lexer.tokenEnd)
+                    .append('\n')
+            lexer.advance()
+        }
+
+        return builder.toString()
+    }
+
+    companion object {
+
+        private const val SEED = 42L
+
+        private val FRAGMENTS = listOf("{", "}", "[", "]", ",", ":", " ", "\n", "\r", "\t", "\u000B", "\u0085",
+                "\u00A0", "\u2028", "\u3000", "\u001C", "true", "false", "null", "tru", "/", "*", "//", "/*", "*/",
+                "\"", "'", "\\", "__cirJsonId__", "\"__cirJsonId__\"", "-", "+", "0", "1", "9", ".", "e", "E",
+                "Infinity", "NaN", "a", "\$", "_", "~", "@", "#", "\u00E9", "\u65E5", "\uD83D\uDE00", "\uD800",
+                "\u0000", "\u007F", "12", "0.5", "1e5", "-Infinity", "?")
+
+    }
+
+}
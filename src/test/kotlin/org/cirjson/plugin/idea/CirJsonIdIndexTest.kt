@@ -0,0 +1,29 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.impl.CirJsonIdIndex
+import org.cirjson.plugin.idea.schema.impl.CirJsonIdIndexEntry
+
+class CirJsonIdIndexTest : CirJsonTestCase() {
+
+    fun testReadIds() {
+        val text = """{"__cirJsonId__": "root", "a": ["arr", {"__cirJsonId__": "obj"}], "b": [""], "c": {"__cirJsonId__": "arr"}}"""
+        val ids = CirJsonIdIndex.readIds(CirJsonFileType.INSTANCE, text)
+
+        assertSameElements(ids.keys, "root", "arr", "obj")
+        assertEquals(listOf(CirJsonIdIndexEntry(18, CirJsonIdIndexEntry.Kind.OBJECT)), ids["root"])
+        assertEquals(listOf(CirJsonIdIndexEntry(57, CirJsonIdIndexEntry.Kind.OBJECT)), ids["obj"])
+        assertEquals(listOf(CirJsonIdIndexEntry(32, CirJsonIdIndexEntry.Kind.ARRAY),
+                CirJsonIdIndexEntry(100, CirJsonIdIndexEntry.Kind.OBJECT)), ids["arr"])
+    }
+
+    fun testCrossFileOccurrences() {
+        myFixture.addFileToProject("first.cirjson", """{"__cirJsonId__": "1", "a": ["2"]}""")
+        myFixture.addFileToProject("second.cirjson", """["1", {"__cirJsonId__": "3"}]""")
+
+        assertEquals(2, CirJsonIdIndex.getContainingFiles(project, "1").size)
+        assertTrue(CirJsonIdIndex.hasDifferentKinds(project, "1"))
+        assertFalse(CirJsonIdIndex.hasDifferentKinds(project, "2"))
+        assertSameElements(CirJsonIdIndex.findIdLiterals(project, "3").map { it.value }, "3")
+    }
+
+}
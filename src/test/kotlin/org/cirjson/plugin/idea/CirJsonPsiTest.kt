@@ -0,0 +1,26 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.psi.CirJsonContainer
+import org.cirjson.plugin.idea.psi.CirJsonFile
+import org.cirjson.plugin.idea.psi.impl.CirJsonRecursiveElementVisitor
+
+class CirJsonPsiTest : CirJsonTestCase() {
+
+    fun testContainersAreVisitedAsContainers() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE,
+                """{"__cirJsonId__": "1", "a": ["2", {"__cirJsonId__": "3"}], "b": 1}""")
+        val visited = mutableListOf<String>()
+
+        (myFixture.file as CirJsonFile).topLevelValue!!.accept(object : CirJsonRecursiveElementVisitor() {
+
+            override fun visitContainer(o: CirJsonContainer) {
+                visited.add(o.toString())
+                super.visitContainer(o)
+            }
+
+        })
+
+        assertEquals(listOf("CirJsonObject", "CirJsonArray", "CirJsonObject"), visited)
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.testFramework.PsiTestUtil
+
+class CirJsonReparseTest : CirJsonTestCase() {
+
+    fun testTypeInNestedObject() {
+        doTest("""{"__cirJsonId__": "1", "a": {"__cirJsonId__": "2", <caret>}, "b": ["3", 1]}""", "\"c\": [\"4\"]")
+    }
+
+    fun testTypeInNestedArray() {
+        doTest("""{"__cirJsonId__": "1", "a": ["2", 1<caret>], "b": ["3"]}""", ", {\"__cirJsonId__\": \"4\"}")
+    }
+
+    fun testUnbalancedBraces() {
+        doTest("""{"__cirJsonId__": "1", "a": ["2", <caret>], "b": ["3"]}""", "{\"__cirJsonId__\": \"4\"")
+    }
+
+    fun testBraceInString() {
+        doTest("""{"__cirJsonId__": "1", "a": {"__cirJsonId__": "2", "b": "<caret>"}}""", "}]")
+    }
+
+    private fun doTest(text: String, typed: String) {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, text)
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(myFixture.caretOffset, typed)
+            PsiDocumentManager.getInstance(project).commitAllDocuments()
+        }
+        PsiTestUtil.checkFileStructure(myFixture.file)
+    }
+
+}
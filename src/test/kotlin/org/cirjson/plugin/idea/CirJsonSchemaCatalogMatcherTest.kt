@@ -0,0 +1,46 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.CirJsonSchemaCatalogEntry
+import org.cirjson.plugin.idea.schema.remote.CirJsonSchemaCatalogMatcher
+import java.nio.file.FileSystems
+import java.nio.file.Paths
+
+class CirJsonSchemaCatalogMatcherTest : CirJsonTestCase() {
+
+    fun testFirstMatchingEntryWins() {
+        val matcher = CirJsonSchemaCatalogMatcher(listOf(entry("1", "*.cirjson"), entry("2", "package.cirjson"),
+                entry("3", "config/*.cirjson", "settings.cirjson"), entry("4", "**/.app/{a,b}.cirjson")))
+
+        assertEquals("1", matcher.findUrl("package.cirjson"))
+        assertEquals("3", matcher.findUrl("config/package.cirjson"))
+        assertEquals("4", matcher.findUrl(".app/b.cirjson"))
+        assertNull(matcher.findUrl("other/package.cirjson"))
+    }
+
+    fun testSameAsPathMatcher() {
+        val masks = listOf("*", "*.cirjson", "a?c", "[ab]*", "[!a]*.x", "[a-c]/**", "{a,b*}.x", "**.x", "a\\*", "x,y}",
+                "[-a]b", "[a-]b", "a/*/b", "a/**/b")
+        val paths = listOf("", "a", "b", "abc", "a.cirjson", "a/b.cirjson", "c.x", "a.x", "b/c.x", "a/d/b", "a/b",
+                "a/d/e/b", "a*", "x,y}", "-b", "bb.x", "a/x")
+
+        for (mask in masks) {
+            val expected = FileSystems.getDefault().getPathMatcher("glob:$mask")
+            val matcher = CirJsonSchemaCatalogMatcher(listOf(entry("url", mask)))
+
+            for (path in paths) {
+                assertEquals("$mask $path", expected.matches(Paths.get(path)), matcher.findUrl(path) != null)
+            }
+        }
+    }
+
+    fun testInvalidMasksNeverMatch() {
+        val matcher = CirJsonSchemaCatalogMatcher(listOf(entry("1", "{a", "[a", "{a,{b}}", "a\\"), entry("2", "*")))
+
+        assertEquals("2", matcher.findUrl("a"))
+    }
+
+    private fun entry(url: String, vararg masks: String): CirJsonSchemaCatalogEntry {
+        return CirJsonSchemaCatalogEntry(masks.toList(), url, null, null)
+    }
+
+}
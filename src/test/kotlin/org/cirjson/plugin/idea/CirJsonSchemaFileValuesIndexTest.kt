@@ -0,0 +1,30 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.impl.CirJsonCachedValues
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaFileValuesIndex
+
+class CirJsonSchemaFileValuesIndexTest : CirJsonTestCase() {
+
+    fun testReadTopLevelProps() {
+        val text = """
+            // comment
+            {"__cirJsonId__": "1", "nested": {"__cirJsonId__": "2", "${'$'}schema": "nested"},
+             "array": ["3", "}", {"__cirJsonId__": "4", "id": "nested"}], /* "${'$'}id": "comment" */
+             ${'$'}id: 'unquoted', "${'$'}schema": "http://example.com/schema"}
+             {"__cirJsonId__": "5", "id": "second root"}
+        """.trimIndent()
+        val props = CirJsonSchemaFileValuesIndex.readTopLevelProps(CirJsonFileType.INSTANCE, text)
+
+        assertEquals("unquoted", props[CirJsonCachedValues.ID_CACHE_KEY])
+        assertEquals(CirJsonSchemaFileValuesIndex.NULL, props[CirJsonCachedValues.OBSOLETE_ID_CACHE_KEY])
+        assertEquals("http://example.com/schema", props[CirJsonCachedValues.URL_CACHE_KEY])
+    }
+
+    fun testRootArray() {
+        val props = CirJsonSchemaFileValuesIndex.readTopLevelProps(CirJsonFileType.INSTANCE,
+                """["1", {"__cirJsonId__": "2", "${'$'}schema": "nested"}]""")
+
+        assertEquals(CirJsonSchemaFileValuesIndex.NULL, props[CirJsonCachedValues.URL_CACHE_KEY])
+    }
+
+}
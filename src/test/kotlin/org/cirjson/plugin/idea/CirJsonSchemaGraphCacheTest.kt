@@ -0,0 +1,187 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiManager
+import com.intellij.testFramework.VfsTestUtil
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaProjectSelfProviderFactory
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaGraphCache
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaReader
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.TimeUnit
+
+class CirJsonSchemaGraphCacheTest : CirJsonTestCase() {
+
+    private lateinit var myFile: VirtualFile
+
+    private lateinit var myText: String
+
+    private var myReadCount = 0
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = LocalFileSystem.getInstance().refreshAndFindFileByPath(project.basePath!!)!!
+        val properties = (1..600).joinToString(", ") {
+            """"p$it": {"__cirJsonId__": "${it + 2}", "type": "string"}"""
+        }
+        myText = """{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2", $properties}}"""
+        myFile = VfsTestUtil.createFile(baseDir, "cached/schema.cirjson", myText)
+        Files.deleteIfExists(CirJsonSchemaGraphCache.getCachePath(myFile.url))
+    }
+
+    override fun tearDown() {
+        try {
+            CirJsonSchemaGraphCache.waitForWrites()
+            Files.deleteIfExists(CirJsonSchemaGraphCache.getCachePath(myFile.url))
+            VfsTestUtil.deleteFile(myFile.parent)
+        } catch (e: Throwable) {
+            addSuppressedException(e)
+        } finally {
+            super.tearDown()
+        }
+    }
+
+    fun testCachedGraphIsReadBack() {
+        val read = getOrRead(myText)
+        assertEquals(1, myReadCount)
+
+        val cached = getOrRead(myText)
+
+        assertEquals(1, myReadCount)
+        assertNotSame(read, cached)
+        assertOrderedEquals(write(cached).asList(), write(read).asList())
+    }
+
+    fun testChangedTextIsReadAgain() {
+        getOrRead(myText)
+        getOrRead("$myText ")
+
+        assertEquals(2, myReadCount)
+    }
+
+    fun testOtherReaderVersionIsReadAgain() {
+        getOrRead(myText)
+        val path = CirJsonSchemaGraphCache.getCachePath(myFile.url)
+        val bytes = Files.readAllBytes(path)
+        // the reader version is the first string after the header: a new string marker, its length and its bytes
+        val lastVersionByte = 9 + bytes[9]
+        bytes[lastVersionByte] = (bytes[lastVersionByte].toInt() xor 1).toByte()
+        Files.write(path, bytes)
+
+        getOrRead(myText)
+
+        assertEquals(2, myReadCount)
+    }
+
+    fun testRecentlyUsedFileIsNotTouched() {
+        getOrRead(myText)
+        val path = CirJsonSchemaGraphCache.getCachePath(myFile.url)
+        val recent = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2))
+        Files.setLastModifiedTime(path, recent)
+
+        getOrRead(myText)
+        CirJsonSchemaGraphCache.waitForWrites()
+
+        assertEquals(recent, Files.getLastModifiedTime(path))
+
+        val old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)
+        Files.setLastModifiedTime(path, FileTime.fromMillis(old))
+
+        getOrRead(myText)
+        CirJsonSchemaGraphCache.waitForWrites()
+
+        assertEquals(1, myReadCount)
+        assertTrue(Files.getLastModifiedTime(path).toMillis() > old)
+    }
+
+    fun testPrune() {
+        val dir = FileUtil.createTempDirectory("cirjson-schemas", null, true).toPath()
+        val now = System.currentTimeMillis()
+        val unused = createCacheFile(dir, "unused.bin", now - TimeUnit.DAYS.toMillis(40))
+        val recent = createCacheFile(dir, "recent.bin", now)
+        val older = createCacheFile(dir, "older.bin", now - TimeUnit.DAYS.toMillis(1))
+
+        CirJsonSchemaGraphCache.prune(dir, now - TimeUnit.DAYS.toMillis(30), 15)
+
+        assertFalse(Files.exists(unused))
+        assertTrue(Files.exists(recent))
+        assertFalse(Files.exists(older))
+    }
+
+    /**
+     * Gets the schema of the file through the cache as if it had the [text], and waits for it to be written.
+     */
+    private fun getOrRead(text: String): CirJsonSchemaObject {
+        val schema = CirJsonSchemaGraphCache.getOrRead(myFile, text) {
+            myReadCount++
+            CirJsonSchemaReader(myFile).read(PsiManager.getInstance(project).findFile(myFile)!!)
+        }!!
+        CirJsonSchemaGraphCache.waitForWrites()
+        return schema
+    }
+
+    private fun createCacheFile(dir: Path, name: String, lastModified: Long): Path {
+        val path = Files.write(dir.resolve(name), ByteArray(10))
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified))
+        return path
+    }
+
+    fun testBundledSchemasRoundTrip() {
+        val files = CirJsonSchemaProjectSelfProviderFactory().getProviders(project).mapNotNull { it.schemaFile }
+        assertNotEmpty(files)
+
+        for (file in files) {
+            val schema = CirJsonSchemaReader(file).read(PsiManager.getInstance(project).findFile(file)!!)!!
+            val bytes = write(schema)
+            val copy = CirJsonSchemaGraphCache.GraphInput(ByteBuffer.wrap(bytes), file).readGraph()
+
+            // the writer covers every field, so equal graphs are written the same
+            assertOrderedEquals(file.name, write(copy).asList(), bytes.asList())
+        }
+    }
+
+    fun testTruncatedGraph() {
+        val file = myFixture.configureByText("schema.cirjson",
+                """{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2", "a": {"__cirJsonId__": "3"}}}""")
+                .virtualFile
+        val bytes = write(CirJsonSchemaReader(file).read(myFixture.file)!!)
+
+        for (length in bytes.indices) {
+            try {
+                CirJsonSchemaGraphCache.GraphInput(ByteBuffer.wrap(bytes, 0, length), file).readGraph()
+                fail("A graph truncated to $length bytes was read")
+            } catch (e: IOException) {
+                // expected
+            } catch (e: RuntimeException) {
+                // expected, like running out of the buffer
+            }
+        }
+    }
+
+    fun testHugeCount() {
+        val file = myFixture.configureByText("schema.cirjson", """{"__cirJsonId__": "1"}""").virtualFile
+        // a list claiming Int.MAX_VALUE values in a few bytes
+        val bytes = byteArrayOf(12, -1, -1, -1, -1, 7)
+
+        assertThrows(IOException::class.java) {
+            CirJsonSchemaGraphCache.GraphInput(ByteBuffer.wrap(bytes), file).readValue()
+        }
+    }
+
+    private fun write(schema: CirJsonSchemaObject): ByteArray {
+        val output = CirJsonSchemaGraphCache.GraphOutput()
+        output.writeGraph(schema)
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { output.writeTo(it) }
+        return bytes.toByteArray()
+    }
+
+}
\ No newline at end of file
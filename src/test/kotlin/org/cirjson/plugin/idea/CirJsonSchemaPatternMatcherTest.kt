@@ -0,0 +1,36 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.testFramework.LightVirtualFile
+import com.intellij.util.PatternUtil
+import org.cirjson.plugin.idea.schema.CirJsonSchemaPatternMatcher
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+
+class CirJsonSchemaPatternMatcherTest : CirJsonTestCase() {
+
+    fun testReturnsAllMatchingIds() {
+        val matcher = CirJsonSchemaPatternMatcher(listOf("*.cirjson" to 0, "package.cirjson" to 1, "*" to 2,
+                "a?c.*" to 3, "*.cirjson" to 4, "" to 5))
+
+        assertEquals(listOf(0, 1, 2, 4), matcher.findMatches(LightVirtualFile("package.cirjson")).stream().toArray()
+                .toList())
+        assertEquals(listOf(0, 2, 3, 4), matcher.findMatches(LightVirtualFile("abc.cirjson")).stream().toArray()
+                .toList())
+        assertEquals(listOf(2), matcher.findMatches(LightVirtualFile("a.json")).stream().toArray().toList())
+    }
+
+    fun testSameAsMaskRegex() {
+        val masks = listOf("*", "a*", "*a", "a?", "?", "*.*", "a*b*c", "*ab*", "a.b", "??*", "a**b")
+        val names = listOf("a", "b", "ab", "ba", "abc", "aXbYc", "a.b", "aab", "axb", ".", "abab")
+
+        for (mask in masks) {
+            val matcher = CirJsonSchemaPatternMatcher(listOf(mask to 0))
+            val pattern = PatternUtil.fromMask(mask)
+
+            for (name in names) {
+                assertEquals("$mask $name", CirJsonSchemaObject.matchPattern(pattern, name),
+                        matcher.matches(LightVirtualFile(name)))
+            }
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaPropertyPatternMatcher
+import java.util.regex.Pattern
+
+class CirJsonSchemaPropertyPatternMatcherTest : CirJsonTestCase() {
+
+    fun testReturnsFirstMatchingPattern() {
+        val matcher = CirJsonSchemaPropertyPatternMatcher(listOf("^x-.*", ".*_id$", "^[a-z]+$").map {
+            Pattern.compile(it)
+        })
+
+        assertEquals(0, matcher.findFirst("x-name"))
+        assertEquals(1, matcher.findFirst("user_id"))
+        assertEquals(2, matcher.findFirst("name"))
+        assertEquals(-1, matcher.findFirst("Name"))
+    }
+
+    fun testSameAsRegex() {
+        val patterns = listOf("^x-.*", ".*_id$", "^abc$", "foo.*", "^a?b.*", "^ab*c$", ".*\\d+$", "^[a-z]+$",
+                ".*a\\u0041$", ".*\\x41.*", "^(?i)abc$", "^a|b$", "^ab{0,1}c$", "^$", "^a.c$", "^\\.foo$",
+                "^p_[0-9]+_s$", "^ab+c.*", "x\\$.*", "^(foo)?bar$", "^ab\\d$")
+        val names = listOf("", "x-", "x-a", "a_id", "_id", "abc", "ABC", "foo", "foobar", "b", "ab", "abbbc", "ac",
+                "12", "aA", "A", "abcc", "abc\n", "a\nc", ".foo", "xfoo", "bar", "p_12_s", "p__s", "abbc", "x$", "ab1")
+
+        for (pattern in patterns) {
+            val compiled = Pattern.compile(pattern)
+            val matcher = CirJsonSchemaPropertyPatternMatcher(listOf(compiled))
+
+            for (name in names) {
+                assertEquals("$pattern $name", CirJsonSchemaObject.matchPattern(compiled, name),
+                        matcher.findFirst(name) == 0)
+            }
+        }
+    }
+
+}
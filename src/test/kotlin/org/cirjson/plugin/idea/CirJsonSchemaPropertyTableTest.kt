@@ -0,0 +1,65 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.util.ThreeState
+import org.cirjson.plugin.idea.pointer.CirJsonPointerPosition
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaPropertyTable
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaReader
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaVariantsTreeBuilder
+
+class CirJsonSchemaPropertyTableTest : CirJsonTestCase() {
+
+    private var myCount = 0
+
+    fun testAdditionalPropertiesSchema() {
+        checkSameAsPropertyStep("""{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "type": "string"}},
+            |"patternProperties": {"__cirJsonId__": "4", "^x": {"__cirJsonId__": "5", "type": "number"}},
+            |"additionalProperties": {"__cirJsonId__": "6", "type": "boolean"}}""".trimMargin())
+    }
+
+    fun testAdditionalPropertiesNotAllowed() {
+        checkSameAsPropertyStep("""{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "type": "string"}},
+            |"patternProperties": {"__cirJsonId__": "4", "^x": {"__cirJsonId__": "5", "type": "number"}},
+            |"additionalProperties": false}""".trimMargin())
+    }
+
+    fun testAdditionalPropertiesAllowedByDefault() {
+        checkSameAsPropertyStep("""{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "type": "string"}},
+            |"patternProperties": {"__cirJsonId__": "4", "^x": {"__cirJsonId__": "5", "type": "number"}}}"""
+                .trimMargin())
+    }
+
+    /**
+     * Checks that the table resolves the same schemas as the property step of the variants tree builder, and reports a
+     * prohibited property exactly when the step answers [ThreeState.NO].
+     */
+    private fun checkSameAsPropertyStep(text: String) {
+        val schema = readSchema(text)
+        val table = CirJsonSchemaPropertyTable(schema)
+
+        for (name in NAMES) {
+            val step = CirJsonSchemaVariantsTreeBuilder.doSingleStep(CirJsonPointerPosition.createSingleProperty(name),
+                    schema, false)
+            val propertySchema = table.getPropertySchema(name)
+
+            assertSame(name, step.second, propertySchema)
+            assertEquals(name, step.first == ThreeState.NO,
+                    propertySchema == null && !table.isAdditionalPropertyAllowed)
+        }
+    }
+
+    private fun readSchema(text: String): CirJsonSchemaObject {
+        val file = myFixture.addFileToProject("schema${++myCount}.cirjson", text)
+        return CirJsonSchemaReader(file.virtualFile).read(file)!!
+    }
+
+    companion object {
+
+        private val NAMES = listOf("a", "x", "xy", "b", "")
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.VfsTestUtil
+import org.cirjson.plugin.idea.schema.CirJsonMappingKind
+import org.cirjson.plugin.idea.schema.UserDefinedCirJsonSchemaConfiguration
+import org.cirjson.plugin.idea.schema.UserDefinedCirJsonSchemaConfiguration.Item
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaFileProvider
+import org.cirjson.plugin.idea.schema.extension.CirJsonSchemaUserDefinedProviderFactory
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaProviderIndex
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaVersion
+
+class CirJsonSchemaProviderIndexTest : CirJsonTestCase() {
+
+    private lateinit var myFiles: List<VirtualFile>
+
+    private lateinit var myLightFile: VirtualFile
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = LocalFileSystem.getInstance().refreshAndFindFileByPath(project.basePath!!)!!
+        myLightFile = myFixture.addFileToProject("$ROOT/light.cirjson", "{}").virtualFile
+        myFiles = FILES.map { VfsTestUtil.createFile(baseDir, "$ROOT/$it", "{}") } + myLightFile
+    }
+
+    override fun tearDown() {
+        try {
+            LocalFileSystem.getInstance().refreshAndFindFileByPath("${project.basePath}/$ROOT")?.let {
+                VfsTestUtil.deleteFile(it)
+            }
+        } catch (e: Throwable) {
+            addSuppressedException(e)
+        } finally {
+            super.tearDown()
+        }
+    }
+
+    fun testFileMappings() {
+        val result = doTest(Item("$ROOT/Sub/Dir/a.cirjson", CirJsonMappingKind.FILE),
+                Item("./$ROOT/Sub/Dir/Nested/b.cirjson", CirJsonMappingKind.FILE),
+                Item("$ROOT\\Other\\A.cirjson", CirJsonMappingKind.FILE),
+                Item("$ROOT/sub/dir/A.CIRJSON", CirJsonMappingKind.FILE),
+                Item(myLightFile.url, CirJsonMappingKind.FILE),
+                Item("$ROOT/missing.cirjson", CirJsonMappingKind.FILE))
+
+        assertContainsElements(result.getValue("Sub/Dir/a.cirjson"), "0")
+        assertContainsElements(result.getValue("Sub/Dir/Nested/b.cirjson"), "1")
+        assertContainsElements(result.getValue("Other/A.cirjson"), "2")
+        assertContainsElements(result.getValue("light.cirjson"), "4")
+        assertDoesntContain(result.values.flatten(), "5")
+    }
+
+    fun testDirectoryMappings() {
+        val result = doTest(Item("$ROOT/Sub", CirJsonMappingKind.DIRECTORY),
+                Item("$ROOT/Sub/Dir/", CirJsonMappingKind.DIRECTORY),
+                Item("./$ROOT/Other", CirJsonMappingKind.DIRECTORY),
+                Item("$ROOT\\Sub\\Dir\\Nested", CirJsonMappingKind.DIRECTORY),
+                Item("$ROOT/SUB", CirJsonMappingKind.DIRECTORY), Item("", CirJsonMappingKind.DIRECTORY))
+
+        assertContainsElements(result.getValue("Sub/Dir/Nested/b.cirjson"), "0", "1", "3", "5")
+        assertContainsElements(result.getValue("Other/A.cirjson"), "2", "5")
+        assertDoesntContain(result.getValue("Other/A.cirjson"), "0", "1", "3")
+    }
+
+    fun testPatternMappings() {
+        val result = doTest(Item("*.cirjson", CirJsonMappingKind.PATTERN), Item("a.*", CirJsonMappingKind.PATTERN),
+                Item("A.CIRJSON", CirJsonMappingKind.PATTERN), Item("Nested/*.cirjson", CirJsonMappingKind.PATTERN),
+                Item("*.json", CirJsonMappingKind.PATTERN))
+
+        assertContainsElements(result.getValue("Sub/Dir/a.cirjson"), "0", "1")
+        assertContainsElements(result.getValue("Other/b.json"), "4")
+        assertDoesntContain(result.getValue("Other/b.json"), "0", "1")
+    }
+
+    fun testMixedMappings() {
+        doTest(Item("$ROOT/Sub/Dir/a.cirjson", CirJsonMappingKind.FILE), Item("b.*", CirJsonMappingKind.PATTERN),
+                Item("$ROOT/Other", CirJsonMappingKind.DIRECTORY))
+    }
+
+    /**
+     * Checks that the index finds the same providers as asking each of them, for providers of each of the [mappings]
+     * and one provider of all of them. Returns the names of the providers available for each file, by path.
+     */
+    private fun doTest(vararg mappings: Item): Map<String, List<String>> {
+        val factory = CirJsonSchemaUserDefinedProviderFactory()
+        val providers = arrayListOf<CirJsonSchemaFileProvider>()
+
+        for ((index, mapping) in mappings.withIndex()) {
+            providers.add(factory.createProvider(project, createConfiguration(index.toString(), listOf(mapping))))
+        }
+
+        providers.add(factory.createProvider(project, createConfiguration("all", mappings.toList())))
+
+        val index = CirJsonSchemaProviderIndex(project, providers)
+        val result = LinkedHashMap<String, List<String>>()
+
+        for (file in myFiles) {
+            val expected = providers.filter { it.isAvailable(file) }
+            val actual = index.getCandidates(file).filter { it.isAvailable(file) }
+            assertEquals(file.path, expected.map { it.name }, actual.map { it.name })
+            result[file.path.substringAfter("$ROOT/")] = actual.map { it.name }
+        }
+
+        return result
+    }
+
+    private fun createConfiguration(name: String, mappings: List<Item>): UserDefinedCirJsonSchemaConfiguration {
+        return UserDefinedCirJsonSchemaConfiguration(name, CirJsonSchemaVersion.SCHEMA_1, "schema.cirjson", false,
+                mappings.toMutableList())
+    }
+
+    companion object {
+
+        private const val ROOT = "providerIndex"
+
+        private val FILES = listOf("Sub/Dir/a.cirjson", "Sub/Dir/Nested/b.cirjson", "Sub/c.cirjson",
+                "Other/A.cirjson", "Other/b.json", "a.cirjson")
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaReader
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaType
+
+class CirJsonSchemaReaderTest : CirJsonTestCase() {
+
+    private var myCount = 0
+
+    fun testUnknownKeyBeforeDefinitions() {
+        val schema = readSchema("""{"__cirJsonId__": "1", "x": {"__cirJsonId__": "2", "type": "string"},
+            |"definitions": {"__cirJsonId__": "3", "d": {"__cirJsonId__": "4", "type": "number"}}}""".trimMargin())
+
+        assertContainsElements(schema.definitionsMap!!.keys, "x", "d")
+        assertEquals(CirJsonSchemaType._string, schema.definitionsMap!!["x"]!!.type)
+        assertEquals(CirJsonSchemaType._number, schema.definitionsMap!!["d"]!!.type)
+    }
+
+    fun testUnknownKeyAfterDefinitions() {
+        val schema = readSchema("""{"__cirJsonId__": "1",
+            |"definitions": {"__cirJsonId__": "2", "d": {"__cirJsonId__": "3", "type": "number"}},
+            |"x": {"__cirJsonId__": "4", "type": "string"}}""".trimMargin())
+
+        assertContainsElements(schema.definitionsMap!!.keys, "x", "d")
+        assertEquals(CirJsonSchemaType._string, schema.definitionsMap!!["x"]!!.type)
+        assertEquals(CirJsonSchemaType._number, schema.definitionsMap!!["d"]!!.type)
+    }
+
+    fun testDefinitionWinsOverUnknownKey() {
+        val schema = readSchema("""{"__cirJsonId__": "1", "d": {"__cirJsonId__": "2", "type": "string"},
+            |"definitions": {"__cirJsonId__": "3", "d": {"__cirJsonId__": "4", "type": "number"}}}""".trimMargin())
+
+        assertEquals(CirJsonSchemaType._number, schema.definitionsMap!!["d"]!!.type)
+        assertEquals("/definitions/d", schema.definitionsMap!!["d"]!!.pointer)
+    }
+
+    fun testMergeKeepsPropertiesOfBothSides() {
+        val base = readSchema("""{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "minLength": 1}, "c": {"__cirJsonId__": "4", "type": "boolean"}}}"""
+                .trimMargin())
+        val other = readSchema("""{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "type": "string"}, "b": {"__cirJsonId__": "4", "type": "number"}}}"""
+                .trimMargin())
+
+        val merged = CirJsonSchemaObject.merge(base, other, other)
+
+        assertSameElements(merged.properties.keys, "a", "b", "c")
+        assertSame(base.properties["c"], merged.properties["c"])
+        assertSame(other.properties["b"], merged.properties["b"])
+        assertEquals(CirJsonSchemaType._string, merged.properties["a"]!!.type)
+        assertEquals(1, merged.properties["a"]!!.minLength)
+        // the merged sides are left as they were read
+        assertSameElements(base.properties.keys, "a", "c")
+        assertSameElements(other.properties.keys, "a", "b")
+    }
+
+    private fun readSchema(text: String): CirJsonSchemaObject {
+        val file = myFixture.addFileToProject("schema${++myCount}.cirjson", text)
+        return CirJsonSchemaReader(file.virtualFile).read(file)!!
+    }
+
+}
\ No newline at end of file
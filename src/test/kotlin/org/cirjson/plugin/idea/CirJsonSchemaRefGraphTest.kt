@@ -0,0 +1,99 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.testFramework.PlatformTestUtil
+import org.cirjson.plugin.idea.schema.CirJsonSchemaService
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaRefGraph
+
+class CirJsonSchemaRefGraphTest : CirJsonTestCase() {
+
+    fun testInvalidateDropsEdgesIntoFile() {
+        val graph = CirJsonSchemaRefGraph.getInstance(project)
+        val a = createFile("a.cirjson")
+        val b = createFile("b.cirjson")
+        val c = createFile("c.cirjson")
+        val intoB = CirJsonSchemaObject(a, "/properties/b")
+        val intoC = CirJsonSchemaObject(a, "/properties/c")
+        graph.putResolved(intoB, "b.cirjson#/x", CirJsonSchemaObject(b, "/x"), listOf(b.url), graph.modificationCount)
+        graph.putResolved(intoC, "c.cirjson#/x", CirJsonSchemaObject(c, "/x"), listOf(c.url), graph.modificationCount)
+
+        assertTrue(graph.isReferenced(b))
+        graph.invalidate(listOf(b))
+
+        assertFalse(graph.isReferenced(b))
+        assertNull(graph.getResolved(intoB, "b.cirjson#/x"))
+        assertEquals("/x", graph.getResolved(intoC, "c.cirjson#/x")!!.get()!!.pointer)
+    }
+
+    fun testInvalidateDropsEdgesResolvedThroughFile() {
+        val graph = CirJsonSchemaRefGraph.getInstance(project)
+        val a = createFile("a.cirjson")
+        val b = createFile("b.cirjson")
+        val c = createFile("c.cirjson")
+        // a recursive reference of a, whose outermost anchor was found in c by way of b
+        val source = CirJsonSchemaObject(a, "/items")
+        graph.putResolved(source, "#", CirJsonSchemaObject(c, "/"), listOf(b.url, c.url), graph.modificationCount)
+
+        graph.invalidate(listOf(b))
+
+        assertNull(graph.getResolved(source, "#"))
+    }
+
+    fun testResolutionStartedBeforeInvalidationIsDropped() {
+        val graph = CirJsonSchemaRefGraph.getInstance(project)
+        val a = createFile("a.cirjson")
+        val b = createFile("b.cirjson")
+        val source = CirJsonSchemaObject(a, "/properties/b")
+        val modificationCount = graph.modificationCount
+
+        graph.invalidate(listOf(b))
+        graph.putResolved(source, "b.cirjson#/x", CirJsonSchemaObject(b, "/x"), listOf(b.url), modificationCount)
+
+        assertNull(graph.getResolved(source, "b.cirjson#/x"))
+    }
+
+    fun testUnresolvedReferenceIsKeptUntilFilesChange() {
+        myFixture.configureByText("schema.cirjson", """{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "${'$'}ref": "#/definitions/missing"}}}""".trimMargin())
+        val service = CirJsonSchemaService.get(project)
+        val graph = CirJsonSchemaRefGraph.getInstance(project)
+        val source = service.getSchemaObjectForSchemaFile(myFixture.file.virtualFile)!!.properties["a"]!!
+
+        assertNull(source.resolveRefSchema(service))
+        assertNull(graph.getResolved(source, "#/definitions/missing")!!.get())
+
+        createFile("missing.cirjson")
+
+        assertNull(graph.getResolved(source, "#/definitions/missing"))
+    }
+
+    fun testUnresolvedReferenceIsDroppedWhenDefinitionIsAdded() {
+        myFixture.configureByText("schema.cirjson", """{"__cirJsonId__": "1", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "${'$'}ref": "b.cirjson#/definitions/x"}}}""".trimMargin())
+        val b = createFile("b.cirjson")
+        val service = CirJsonSchemaService.get(project)
+        val source = service.getSchemaObjectForSchemaFile(myFixture.file.virtualFile)!!.properties["a"]!!
+
+        assertNull(source.resolveRefSchema(service))
+
+        // an edit in the editor, which changes the PSI but not the file until it's saved
+        val document = FileDocumentManager.getInstance().getDocument(b)!!
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.insertString(document.textLength - 1, """, "definitions": {"__cirJsonId__": "2",
+                |"x": {"__cirJsonId__": "3", "type": "string"}}""".trimMargin())
+            PsiDocumentManager.getInstance(project).commitDocument(document)
+        }
+        PlatformTestUtil.dispatchAllInvocationEventsInIdeEventQueue()
+
+        assertEquals("/definitions/x", source.resolveRefSchema(service)?.pointer)
+    }
+
+    private fun createFile(name: String): VirtualFile {
+        return myFixture.addFileToProject(name, """{"__cirJsonId__": "1"}""").virtualFile
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.cirjson.plugin.idea.psi.CirJsonFile
+import org.cirjson.plugin.idea.psi.CirJsonProperty
+import org.cirjson.plugin.idea.psi.CirJsonValue
+import org.cirjson.plugin.idea.schema.CirJsonSchemaService
+import org.cirjson.plugin.idea.schema.extension.CirJsonLikePsiWalker
+import org.cirjson.plugin.idea.schema.extension.adapters.CirJsonValueAdapter
+import org.cirjson.plugin.idea.schema.impl.CirJsonComplianceCheckerOptions
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaAnnotatorChecker
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaValidationCache
+
+class CirJsonSchemaValidationCacheTest : CirJsonTestCase() {
+
+    private lateinit var mySchema: CirJsonSchemaObject
+
+    override fun setUp() {
+        super.setUp()
+        val schemaFile = myFixture.addFileToProject("schema.cirjson", SCHEMA.trimMargin()).virtualFile
+        mySchema = CirJsonSchemaService.get(project).getSchemaObjectForSchemaFile(schemaFile)!!
+    }
+
+    fun testEditRevalidatesOnlyAncestors() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, """{"__cirJsonId__": "1",
+            |"a": {"__cirJsonId__": "2", "a1": {"__cirJsonId__": "3", "x": "s"<caret>},
+            |"a2": {"__cirJsonId__": "4", "x": "t"}},
+            |"b": {"__cirJsonId__": "5", "x": "u", "y": "v"}}""".trimMargin())
+        val cache = CirJsonSchemaValidationCache.getInstance(project)
+        val before = validate()
+        assertNotNull(cache.getResult(getAdapter("a1"), getSchema("a", "a1"), OPTIONS))
+
+        type(""", "y": "w"""")
+
+        assertNull(cache.getResult(getRootAdapter(), mySchema, OPTIONS))
+        assertNull(cache.getResult(getAdapter("a"), getSchema("a"), OPTIONS))
+        assertNull(cache.getResult(getAdapter("a1"), getSchema("a", "a1"), OPTIONS))
+        assertNotNull(cache.getResult(getAdapter("a2"), getSchema("a", "a2"), OPTIONS))
+        assertNotNull(cache.getResult(getAdapter("b"), getSchema("b"), OPTIONS))
+
+        val cached = validate()
+        cache.clear()
+        val uncached = validate()
+
+        assertEquals(uncached, cached)
+        assertEquals(before.size + 1, cached.size)
+    }
+
+    fun testErrorsOfNestedResultsAreKeptOnce() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, """{"__cirJsonId__": "1",
+            |"a": {"__cirJsonId__": "2", "a1": {"__cirJsonId__": "3", "x": "s"}, "a2": {"__cirJsonId__": "4"}},
+            |"b": {"__cirJsonId__": "5", "y": "v"}}""".trimMargin())
+        validate()
+        val cache = CirJsonSchemaValidationCache.getInstance(project)
+
+        val root = cache.getResult(getRootAdapter(), mySchema, OPTIONS)!!
+        val a = cache.getResult(getAdapter("a"), getSchema("a"), OPTIONS)!!
+        val a1 = cache.getResult(getAdapter("a1"), getSchema("a", "a1"), OPTIONS)!!
+
+        assertEquals(2, root.errors.size)
+        assertEquals(1, a.errors.size)
+        assertSame(a1.errors.values.single(), a.errors.values.single())
+        assertTrue(root.errors.values.any { it === a1.errors.values.single() })
+    }
+
+    /**
+     * Validates the file against the schema, and returns its errors as the offsets of their elements and messages.
+     */
+    private fun validate(): List<String> {
+        val checker = CirJsonSchemaAnnotatorChecker(project, OPTIONS)
+        checker.checkObjectBySchemaRecordErrors(mySchema, getRootAdapter())
+        return checker.errors.map { "${it.key.textRange.startOffset}: ${it.value.message}" }.sorted()
+    }
+
+    private fun getRootAdapter(): CirJsonValueAdapter {
+        return createAdapter((myFixture.file as CirJsonFile).topLevelValue!!)
+    }
+
+    private fun getAdapter(propertyName: String): CirJsonValueAdapter {
+        val property = PsiTreeUtil.findChildrenOfType(myFixture.file, CirJsonProperty::class.java).first {
+            it.name == propertyName
+        }
+        return createAdapter(property.value!!)
+    }
+
+    private fun createAdapter(value: CirJsonValue): CirJsonValueAdapter {
+        return CirJsonLikePsiWalker.getWalker(value, mySchema)!!.createValueAdapter(value)!!
+    }
+
+    private fun getSchema(vararg path: String): CirJsonSchemaObject {
+        return path.fold(mySchema) { schema, name -> schema.properties[name]!! }
+    }
+
+    private fun type(text: String) {
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(myFixture.caretOffset, text)
+            PsiDocumentManager.getInstance(project).commitAllDocuments()
+        }
+    }
+
+    companion object {
+
+        private val OPTIONS = CirJsonComplianceCheckerOptions(false)
+
+        private val SCHEMA = """{"__cirJsonId__": "1", "type": "object", "properties": {"__cirJsonId__": "2",
+            |"a": {"__cirJsonId__": "3", "type": "object", "properties": {"__cirJsonId__": "4",
+            |"a1": {"__cirJsonId__": "5", "${'$'}ref": "#/definitions/item"},
+            |"a2": {"__cirJsonId__": "6", "${'$'}ref": "#/definitions/item"}}},
+            |"b": {"__cirJsonId__": "7", "${'$'}ref": "#/definitions/item"}},
+            |"definitions": {"__cirJsonId__": "8", "item": {"__cirJsonId__": "9", "type": "object",
+            |"properties": {"__cirJsonId__": "10", "x": {"__cirJsonId__": "11", "type": "integer"},
+            |"y": {"__cirJsonId__": "12", "type": "integer"}}}}}"""
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.cirjson.plugin.idea
+
+import org.cirjson.plugin.idea.schema.CirJsonSchemaService
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaCacheManager
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaObject
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaResolver
+
+class CirJsonSchemaValidationPlanTest : CirJsonTestCase() {
+
+    fun testMatchResultIsTheSameAsDetailedResolve() {
+        val schemaFile = myFixture.addFileToProject("schema.cirjson", SCHEMA.trimMargin()).virtualFile
+        val schema = CirJsonSchemaService.get(project).getSchemaObjectForSchemaFile(schemaFile)!!
+
+        checkMatchResult(schema)
+
+        for (property in schema.properties.values) {
+            checkMatchResult(property)
+        }
+    }
+
+    private fun checkMatchResult(schema: CirJsonSchemaObject) {
+        val cacheManager = CirJsonSchemaCacheManager.getInstance(project)
+        val plan = cacheManager.getValidationPlan(schema)
+        val expected = CirJsonSchemaResolver(project, schema).detailedResolve()
+
+        assertEquals(expected.mySchemas, plan.matchResult.mySchemas)
+        assertEquals(expected.myExcludingSchemas, plan.matchResult.myExcludingSchemas)
+        assertSame(plan.matchResult, cacheManager.getValidationPlan(schema).matchResult)
+    }
+
+    companion object {
+
+        private val SCHEMA = """{"__cirJsonId__": "1", "type": "object", "properties": {"__cirJsonId__": "2",
+            |"ref": {"__cirJsonId__": "3", "${'$'}ref": "#/definitions/a"},
+            |"any": {"__cirJsonId__": "4", "anyOf": ["5", {"__cirJsonId__": "6", "${'$'}ref": "#/definitions/a"},
+            |{"__cirJsonId__": "7", "${'$'}ref": "#/definitions/b"}]},
+            |"one": {"__cirJsonId__": "8", "oneOf": ["9", {"__cirJsonId__": "10", "type": "string"},
+            |{"__cirJsonId__": "11", "${'$'}ref": "#/definitions/b"}]},
+            |"all": {"__cirJsonId__": "12", "allOf": ["13", {"__cirJsonId__": "14", "${'$'}ref": "#/definitions/a"},
+            |{"__cirJsonId__": "15", "minLength": 2}]}},
+            |"definitions": {"__cirJsonId__": "16", "a": {"__cirJsonId__": "17", "type": "string"},
+            |"b": {"__cirJsonId__": "18", "type": "integer"}}}"""
+
+    }
+
+}
\ No newline at end of file
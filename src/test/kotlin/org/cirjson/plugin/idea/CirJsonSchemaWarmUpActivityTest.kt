@@ -0,0 +1,59 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.testFramework.PlatformTestUtil
+import org.cirjson.plugin.idea.schema.impl.CirJsonCachedValues
+import org.cirjson.plugin.idea.schema.impl.CirJsonSchemaWarmUpActivity
+import org.cirjson.plugin.idea.schema.remote.CirJsonFileResolver
+
+class CirJsonSchemaWarmUpActivityTest : CirJsonTestCase() {
+
+    fun testEnabledByDefault() {
+        assertTrue(Registry.`is`(CirJsonSchemaWarmUpActivity.WARM_UP_REGISTRY_KEY))
+    }
+
+    fun testDisabledByRegistry() {
+        Registry.get(CirJsonSchemaWarmUpActivity.WARM_UP_REGISTRY_KEY).setValue(false, testRootDisposable)
+        assertFalse(CirJsonSchemaWarmUpActivity.scheduleWarmUp(project))
+    }
+
+    fun testCollectSchemaFiles() {
+        val schema = myFixture.addFileToProject("schemas/local.cirjson", SCHEMA).virtualFile
+        val unused = myFixture.addFileToProject("schemas/unused.cirjson", SCHEMA).virtualFile
+        myFixture.addFileToProject("local.cirjson", LOCAL_DATA)
+        myFixture.addFileToProject("remote.cirjson",
+                """{"__cirJsonId__": "1", "${'$'}schema": "https://example.com/remote.cirjson"}""")
+
+        val files = CirJsonSchemaWarmUpActivity.collectSchemaFiles(project)
+
+        assertContainsElements(files, schema)
+        assertDoesntContain(files, unused)
+        assertFalse(files.any { CirJsonFileResolver.isHttpPath(it.url) })
+    }
+
+    fun testWarmUpReadsSchemas() {
+        val schema = myFixture.addFileToProject("schemas/local.cirjson", SCHEMA).virtualFile
+        myFixture.addFileToProject("local.cirjson", LOCAL_DATA)
+        assertFalse(CirJsonCachedValues.hasSchemaObject(schema, project))
+
+        val future = ApplicationManager.getApplication().executeOnPooledThread {
+            CirJsonSchemaWarmUpActivity.warmUp(project, EmptyProgressIndicator())
+        }
+        PlatformTestUtil.waitForFuture(future, TIMEOUT_MS)
+
+        assertTrue(CirJsonCachedValues.hasSchemaObject(schema, project))
+    }
+
+    companion object {
+
+        private const val TIMEOUT_MS = 60_000L
+
+        private const val SCHEMA = """{"__cirJsonId__": "1", "type": "object"}"""
+
+        private val LOCAL_DATA = """{"__cirJsonId__": "1", "${'$'}schema": "schemas/local.cirjson"}"""
+
+    }
+
+}
\ No newline at end of file
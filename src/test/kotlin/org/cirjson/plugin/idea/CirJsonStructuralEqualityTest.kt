@@ -0,0 +1,85 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.cirjson.plugin.idea.psi.CirJsonArray
+import org.cirjson.plugin.idea.schema.impl.validations.CirJsonStructuralEquality
+
+class CirJsonStructuralEqualityTest : CirJsonTestCase() {
+
+    fun testScalars() {
+        doTest("""["1", 1, 1.0, 1e0, 10e-1, 2, "a", "\u0061", 'a', "b", true, true, null, null]""",
+                "1 | 1.0 | 1e0 | 10e-1", "\"a\" | \"\\u0061\" | 'a'", "true | true", "null | null")
+    }
+
+    fun testPropertyOrderAndFormatting() {
+        val first = """{"__cirJsonId__": "2", "a": 1, "b": [ "3", 2 ]}"""
+        val second = """{ "__cirJsonId__" : "2" , "b" : ["3",2.0] , "a" : 1 }"""
+        doTest("""["1", $first,
+            |$second]""".trimMargin(), "$first | $second")
+    }
+
+    fun testDifferentIds() {
+        doTest("""["1", {"__cirJsonId__": "2", "a": 1}, {"__cirJsonId__": "3", "a": 1}, ["4", 1], ["5", 1]]""")
+    }
+
+    fun testSameIds() {
+        doTest("""["1", ["2", 1], ["2", 1], ["2", 2]]""", "[\"2\", 1] | [\"2\", 1]")
+    }
+
+    fun testDifferentValues() {
+        doTest("""["1", {"__cirJsonId__": "2", "a": 1}, {"__cirJsonId__": "2", "a": 2},
+            |{"__cirJsonId__": "2", "b": 1}, {"__cirJsonId__": "2", "a": 1, "b": 1}, "1", 1.5, 15e-1]""".trimMargin(),
+                "1.5 | 15e-1")
+    }
+
+    fun testEditElsewhereKeepsCachedResult() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE,
+                """{"__cirJsonId__": "1", "a": ["2", 1, 1], "b": ["3", 2<caret>]}""")
+        val array = PsiTreeUtil.findChildrenOfType(myFixture.file, CirJsonArray::class.java).first()
+        val duplicates = CirJsonStructuralEquality.findDuplicates(array)
+
+        type(", 2")
+
+        assertTrue(array.isValid)
+        assertSame(duplicates, CirJsonStructuralEquality.findDuplicates(array))
+        val other = PsiTreeUtil.findChildrenOfType(myFixture.file, CirJsonArray::class.java).last()
+        assertEquals(listOf(listOf("2", "2")), CirJsonStructuralEquality.findDuplicates(other).map { group ->
+            group.map { it.text }
+        })
+    }
+
+    fun testEditInsideUpdatesResult() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, """{"__cirJsonId__": "1",
+            |"a": ["2", {"__cirJsonId__": "3", "x": 1}, {"__cirJsonId__": "3", "x": 1<caret>}]}""".trimMargin())
+        val array = PsiTreeUtil.findChildOfType(myFixture.file, CirJsonArray::class.java)!!
+        assertEquals(1, CirJsonStructuralEquality.findDuplicates(array).size)
+
+        type("0")
+
+        val updated = PsiTreeUtil.findChildOfType(myFixture.file, CirJsonArray::class.java)!!
+        assertEmpty(CirJsonStructuralEquality.findDuplicates(updated))
+    }
+
+    /**
+     * Checks that the duplicates of the first array of the [text] are the [expected] groups, each written as the texts
+     * of its elements separated by ` | `.
+     */
+    private fun doTest(text: String, vararg expected: String) {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, text)
+        val array = PsiTreeUtil.findChildOfType(myFixture.file, CirJsonArray::class.java)!!
+        val actual = CirJsonStructuralEquality.findDuplicates(array).map { group ->
+            group.joinToString(" | ") { it.text }
+        }
+        assertSameElements(actual, *expected)
+    }
+
+    private fun type(text: String) {
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(myFixture.caretOffset, text)
+            PsiDocumentManager.getInstance(project).commitAllDocuments()
+        }
+    }
+
+}
\ No newline at end of file
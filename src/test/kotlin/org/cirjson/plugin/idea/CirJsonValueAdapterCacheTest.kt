@@ -0,0 +1,62 @@
+package org.cirjson.plugin.idea
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import org.cirjson.plugin.idea.psi.CirJsonArray
+import org.cirjson.plugin.idea.psi.CirJsonFile
+import org.cirjson.plugin.idea.psi.CirJsonObject
+import org.cirjson.plugin.idea.schema.impl.adapters.CirJsonCirJsonArrayAdapter
+import org.cirjson.plugin.idea.schema.impl.adapters.CirJsonCirJsonObjectAdapter
+
+class CirJsonValueAdapterCacheTest : CirJsonTestCase() {
+
+    fun testPropertyAdaptersAreCachedUntilEdit() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE,
+                """{"__cirJsonId__": "1", "a": 1, "b": ["2", true, null]<caret>}""")
+        val first = CirJsonCirJsonObjectAdapter(getObject())
+        val second = CirJsonCirJsonObjectAdapter(getObject())
+        val property = first.findProperty("a")!!
+        val properties = first.propertyList
+
+        assertSame(property, second.findProperty("a"))
+        assertSame(properties, second.propertyList)
+        assertSame(properties[0], property)
+
+        type(""", "c": 2""")
+
+        val edited = CirJsonCirJsonObjectAdapter(getObject())
+
+        assertNotSame(property, edited.findProperty("a"))
+        assertEquals(properties.size + 1, edited.propertyList.size)
+    }
+
+    fun testElementAdaptersAreCachedUntilEdit() {
+        myFixture.configureByText(CirJsonFileType.INSTANCE, """["1", true, null<caret>]""")
+        val elements = CirJsonCirJsonArrayAdapter(getArray()).elements
+
+        assertSame(elements, CirJsonCirJsonArrayAdapter(getArray()).elements)
+
+        type(""", 2""")
+
+        val edited = CirJsonCirJsonArrayAdapter(getArray()).elements
+
+        assertNotSame(elements, edited)
+        assertEquals(elements.size + 1, edited.size)
+    }
+
+    private fun getObject(): CirJsonObject {
+        return (myFixture.file as CirJsonFile).topLevelValue as CirJsonObject
+    }
+
+    private fun getArray(): CirJsonArray {
+        return (myFixture.file as CirJsonFile).topLevelValue as CirJsonArray
+    }
+
+    private fun type(text: String) {
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(myFixture.caretOffset, text)
+            PsiDocumentManager.getInstance(project).commitAllDocuments()
+        }
+    }
+
+}
\ No newline at end of file